@@ -0,0 +1,106 @@
+package manager;
+
+import model.Car;
+import model.Coordinates;
+import model.HumanBeing;
+import model.Mood;
+import util.StringDictionary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Compact binary form of one HumanBeing:
+ * fixed-width numbers, epoch-day date, mood ordinal, length-prefixed strings
+ * and one flags byte for the boolean and nullable fields.
+ */
+public final class BinaryRecords {
+
+    private static final int REAL_HERO = 1;
+    private static final int HAS_TOOTHPICK_SET = 1 << 1;
+    private static final int HAS_TOOTHPICK = 1 << 2;
+    private static final int MINUTES_SET = 1 << 3;
+    private static final int CAR_SET = 1 << 4;
+    private static final int CAR_COOL_SET = 1 << 5;
+    private static final int CAR_COOL = 1 << 6;
+
+    private static final Mood[] MOODS = Mood.values();
+
+    private BinaryRecords() {
+    }
+
+    public static void write(DataOutput out, HumanBeing hb) throws IOException {
+        Car car = hb.getCar();
+
+        int flags = 0;
+        if (hb.getRealHero()) flags |= REAL_HERO;
+        if (hb.getHasToothpick() != null) {
+            flags |= HAS_TOOTHPICK_SET;
+            if (hb.getHasToothpick()) flags |= HAS_TOOTHPICK;
+        }
+        if (hb.getMinutesOfWaiting() != null) flags |= MINUTES_SET;
+        if (car != null) {
+            flags |= CAR_SET;
+            if (car.getCool() != null) {
+                flags |= CAR_COOL_SET;
+                if (car.getCool()) flags |= CAR_COOL;
+            }
+        }
+
+        out.writeInt(hb.getId());
+        out.writeByte(flags);
+        out.writeInt(hb.getCoordinates().getX());
+        out.writeInt(hb.getCoordinates().getY());
+        out.writeLong(hb.getCreationDate().toEpochDay());
+        out.writeDouble(hb.getImpactSpeed());
+        out.writeByte(hb.getMood().ordinal());
+        if (hb.getMinutesOfWaiting() != null) out.writeInt(hb.getMinutesOfWaiting());
+        out.writeUTF(hb.getName());
+        out.writeUTF(hb.getSoundtrackName());
+        if (car != null) out.writeUTF(car.getName());
+    }
+
+    public static HumanBeing read(DataInput in) throws IOException {
+        return read(in, null);
+    }
+
+    // soundtrackName and car name are interned in the dictionary if one is given
+    public static HumanBeing read(DataInput in, StringDictionary dictionary) throws IOException {
+        int id = in.readInt();
+        int flags = in.readUnsignedByte();
+        int x = in.readInt();
+        int y = in.readInt();
+        long epochDay = in.readLong();
+        double impactSpeed = in.readDouble();
+        int mood = in.readUnsignedByte();
+        Integer minutesOfWaiting = (flags & MINUTES_SET) != 0 ? in.readInt() : null;
+        String name = in.readUTF();
+        String soundtrackName = in.readUTF();
+
+        Car car = null;
+        if ((flags & CAR_SET) != 0) {
+            Boolean cool = (flags & CAR_COOL_SET) != 0 ? (flags & CAR_COOL) != 0 : null;
+            String carName = in.readUTF();
+            car = new Car(dictionary == null ? carName : dictionary.intern(carName), cool);
+        }
+        if (dictionary != null) soundtrackName = dictionary.intern(soundtrackName);
+
+        if (mood >= MOODS.length) throw new IOException("Unknown mood ordinal: " + mood);
+
+        return new HumanBeing(
+                id,
+                name,
+                new Coordinates(x, y),
+                LocalDate.ofEpochDay(epochDay),
+                (flags & REAL_HERO) != 0,
+                (flags & HAS_TOOTHPICK_SET) != 0 ? (flags & HAS_TOOTHPICK) != 0 : null,
+                impactSpeed,
+                soundtrackName,
+                minutesOfWaiting,
+                MOODS[mood],
+                car
+        );
+    }
+}
@@ -0,0 +1,72 @@
+package manager;
+
+import model.HumanBeing;
+import util.StringDictionary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Versioned binary snapshot of the collection:
+ * [int magic][short version][int count] followed by count records in BinaryRecords form.
+ * Nothing has to be parsed from text, so loading is much faster than CSV.
+ */
+public final class BinarySnapshot {
+
+    private static final int MAGIC = 0x48424E53; // "HBNS"
+    private static final short VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private BinarySnapshot() {
+    }
+
+    public static List<HumanBeing> read(Path path, StringDictionary dictionary) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE))) {
+
+            if (in.readInt() != MAGIC) throw new IOException("Not a binary snapshot: " + path);
+            short version = in.readShort();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version: " + version);
+
+            int count = in.readInt();
+            if (count < 0) throw new IOException("Corrupted snapshot header: " + path);
+
+            List<HumanBeing> elements = new ArrayList<>(Math.min(count, 1 << 20));
+            for (int i = 0; i < count; i++) {
+                elements.add(BinaryRecords.read(in, dictionary));
+            }
+            return elements;
+        }
+    }
+
+    // Written to a temporary file, fsynced and renamed over the target, like CsvWriter.
+    public static void write(Path path, Collection<HumanBeing> elements) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(elements.size());
+                for (HumanBeing hb : elements) {
+                    BinaryRecords.write(out, hb);
+                }
+                out.flush();
+                file.getChannel().force(true);
+            }
+            CsvWriter.replace(tmp, path);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
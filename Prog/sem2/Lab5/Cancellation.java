@@ -0,0 +1,27 @@
+package manager;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Lets the caller of a long scan give up on it (the server passes the request's deadline).
+ * Scans call check every CHECK_INTERVAL elements, and only while nothing has been changed yet:
+ * a command that is cancelled leaves the collection, the journal and the version as they were.
+ */
+public interface Cancellation {
+
+    Cancellation NONE = () -> false;
+
+    int CHECK_INTERVAL = 1024; // a power of two
+
+    boolean cancelled();
+
+    /**
+     * @param scanned elements scanned so far
+     * @throws CancellationException if the caller gave up
+     */
+    default void check(int scanned) {
+        if ((scanned & (CHECK_INTERVAL - 1)) == 0 && cancelled()) {
+            throw new CancellationException("cancelled after " + scanned + " elements");
+        }
+    }
+}
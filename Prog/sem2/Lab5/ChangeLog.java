@@ -0,0 +1,149 @@
+package manager;
+
+import model.HumanBeing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The last changes of the collection, so a client holding a copy at some version
+ * can catch up without getting every element again.
+ * Only upserts (remove + push, which is what add and update do to the stack) and removals are kept;
+ * changes that touch everything (clear, shuffle, load) reset the log, and so does running out of room.
+ * A client older than the log gets a full copy instead.
+ * Not thread-safe, CollectionManager calls it under its lock.
+ */
+public class ChangeLog {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    private final int capacity;
+    private final ArrayDeque<Change> changes = new ArrayDeque<>();
+    private long firstVersion; // every change after this version is in the log
+
+    private static class Change {
+        final long version;
+        final int id;
+        final HumanBeing element; // null = removed
+
+        Change(long version, int id, HumanBeing element) {
+            this.version = version;
+            this.id = id;
+            this.element = element;
+        }
+    }
+
+    /**
+     * What a client at some version has to do to reach the current one:
+     * drop the removed ids and the upserted ones, then push the upserted elements in order.
+     * If full is set the client drops everything first and upserted holds the whole collection.
+     */
+    public static class Delta {
+        private final long version;
+        private final boolean full;
+        private final List<HumanBeing> upserted;
+        private final int[] removed;
+
+        Delta(long version, boolean full, List<HumanBeing> upserted, int[] removed) {
+            this.version = version;
+            this.full = full;
+            this.upserted = upserted;
+            this.removed = removed;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isFull() {
+            return full;
+        }
+
+        // in stack order (bottom first)
+        public List<HumanBeing> getUpserted() {
+            return upserted;
+        }
+
+        public int[] getRemoved() {
+            return removed;
+        }
+    }
+
+    public ChangeLog(long version) {
+        this(version, DEFAULT_CAPACITY);
+    }
+
+    public ChangeLog(long version, int capacity) {
+        this.capacity = capacity;
+        this.firstVersion = version;
+    }
+
+    public void upsert(long version, HumanBeing hb) {
+        add(new Change(version, hb.getId(), hb));
+    }
+
+    public void remove(long version, int id) {
+        add(new Change(version, id, null));
+    }
+
+    // Forgets everything: clients older than version need a full copy.
+    public void reset(long version) {
+        changes.clear();
+        firstVersion = version;
+    }
+
+    /**
+     * @return the net effect of the changes after version, ending at current;
+     * null if the log does not reach back that far (or version is not one of ours)
+     */
+    public Delta since(long version, long current) {
+        if (version < firstVersion || version > current) return null;
+
+        // newest first until we pass version, then replay oldest first
+        List<Change> newer = new ArrayList<>();
+        Iterator<Change> it = changes.descendingIterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change.version <= version) break;
+            newer.add(change);
+        }
+        Collections.reverse(newer);
+
+        Map<Integer, HumanBeing> upserted = new LinkedHashMap<>();
+        Set<Integer> removed = new LinkedHashSet<>();
+        for (Change change : newer) {
+            upserted.remove(change.id); // an upsert moves the element to the top
+            if (change.element != null) {
+                upserted.put(change.id, change.element);
+                removed.remove(change.id);
+            } else {
+                removed.add(change.id);
+            }
+        }
+
+        int[] ids = new int[removed.size()];
+        int i = 0;
+        for (int id : removed) ids[i++] = id;
+        return new Delta(current, false, new ArrayList<>(upserted.values()), ids);
+    }
+
+    static Delta full(long version, List<HumanBeing> elements) {
+        return new Delta(version, true, elements, new int[0]);
+    }
+
+    private void add(Change change) {
+        changes.addLast(change);
+        while (changes.size() > capacity) {
+            firstVersion = changes.removeFirst().version;
+            // the rest of that version's changes are useless on their own
+            while (!changes.isEmpty() && changes.peekFirst().version == firstVersion) changes.removeFirst();
+        }
+    }
+}
@@ -1,242 +1,661 @@
-package manager;
-
-import model.Car;
-import model.Coordinates;
-import model.HumanBeing;
-import model.Mood;
-
-import java.io.BufferedReader;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.IOException;
-import java.time.LocalDate;
-import java.util.Optional;
-import java.util.Stack;
-
-/**
- * Stores and manages the collection of HumanBeing objects.
- * This is the "collection context" in the Command Pattern architecture.
- */
-
-public class CollectionManager {
-
-    private final Stack<HumanBeing> stack = new Stack<>();
-    private final LocalDate initializationDate = LocalDate.now();
-    private final String fileName;
-    private int nextId = 1;
-
-    public CollectionManager(String fileName) {
-        this.fileName = fileName;
-    }
-
-    public String getFileName() {
-        return fileName;
-    }
-
-    // existing methods stay the same
-
-    public Stack<HumanBeing> getStack() {
-        return stack;
-    }
-
-    public LocalDate getInitializationDate() {
-        return initializationDate;
-    }
-
-    // Generates a unique id for new elements (used when adding from console).
-    public int generateNextId() {
-        return nextId++;
-    }
-
-    /**
-     * After loading from file, setting nextId to (maxId + 1).
-     * then call this after reading CSV.
-     */
-    public void updateNextIdFromCollection() {
-        int maxId = stack.stream()
-                .map(HumanBeing::getId)
-                .max(Integer::compareTo)
-                .orElse(0);
-        nextId = maxId + 1;
-    }
-
-    public Optional<HumanBeing> findById(int id) {
-        return stack.stream().filter(h -> h.getId() == id).findFirst();
-    }
-
-    public boolean removeById(int id) {
-        return stack.removeIf(h -> h.getId() == id);
-    }
-
-    public void clear() {
-        stack.clear();
-    }
-
-    public void loadFromFile() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
-
-            String line;
-
-            while ((line = reader.readLine()) != null) {
-
-                if (line.trim().isEmpty()) continue;
-
-                String[] data = line.split(",", -1);
-
-                if (data.length < 13) {
-                    String[] fixed = new String[13];
-                    for (int i = 0; i < 13; i++) fixed[i] = "";
-                    System.arraycopy(data, 0, fixed, 0, data.length);
-                    data = fixed;
-                }
-
-                HumanBeing hb = new HumanBeing(
-                        Integer.parseInt(data[0]),
-                        data[1],
-                        new Coordinates(
-                                Integer.parseInt(data[2]),
-                                Integer.parseInt(data[3])
-                        ),
-                        LocalDate.parse(data[4]),
-                        Boolean.parseBoolean(data[5]),
-                        data[6].isEmpty() ? null : Boolean.parseBoolean(data[6]),
-                        Double.parseDouble(data[7]),
-                        data[8],
-                        data[9].isEmpty() ? null : Integer.parseInt(data[9]),
-                        Mood.valueOf(data[10]),
-                        data[11].isEmpty() ? null :
-                                new Car(
-                                        data[11],
-                                        data[12].isEmpty() ? null : Boolean.parseBoolean(data[12])
-                                )
-                );
-
-                stack.add(hb);
-            }
-
-            updateNextIdFromCollection();
-
-            System.out.println("Loaded elements: " + stack.size());
-
-        } catch (Exception e) {
-            System.out.println("Error while loading file: " + e.getMessage());
-        }
-    }
-
-    public void saveToFile() {
-        try (FileOutputStream fos = new FileOutputStream(fileName)) {
-
-            for (HumanBeing hb : stack) {
-                String line = toCsv(hb) + "\n";
-                fos.write(line.getBytes());
-            }
-
-            System.out.println("Collection saved successfully.");
-
-        } catch (IOException e) {
-            System.out.println("Error while saving file: " + e.getMessage());
-        }
-    }
-
-    private String toCsv(HumanBeing hb) {
-        String carName = "";
-        String carCool = "";
-
-        if (hb.getCar() != null) {
-            carName = hb.getCar().getName();
-            carCool = (hb.getCar().getCool() == null) ? "" : hb.getCar().getCool().toString();
-        }
-
-        String hasToothpick = (hb.getHasToothpick() == null) ? "" : hb.getHasToothpick().toString();
-        String minutesOfWaiting = (hb.getMinutesOfWaiting() == null) ? "" : hb.getMinutesOfWaiting().toString();
-
-        return hb.getId() + "," +
-                hb.getName() + "," +
-                hb.getCoordinates().getX() + "," +
-                hb.getCoordinates().getY() + "," +
-                hb.getCreationDate() + "," +
-                hb.getRealHero() + "," +
-                hasToothpick + "," +
-                hb.getImpactSpeed() + "," +
-                hb.getSoundtrackName() + "," +
-                minutesOfWaiting + "," +
-                hb.getMood() + "," +
-                carName + "," +
-                carCool;
-    }
-
-    public void addHumanBeing(
-            String name,
-            Coordinates coordinates,
-            Boolean realHero,
-            Boolean hasToothpick,
-            double impactSpeed,
-            String soundtrackName,
-            Integer minutesOfWaiting,
-            Mood mood,
-            Car car
-    ) {
-        int id = generateNextId();
-        LocalDate creationDate = LocalDate.now();
-
-        HumanBeing hb = new HumanBeing(
-                id,
-                name,
-                coordinates,
-                creationDate,
-                realHero,
-                hasToothpick,
-                impactSpeed,
-                soundtrackName,
-                minutesOfWaiting,
-                mood,
-                car
-        );
-
-        stack.push(hb);
-        System.out.println("Added element with id=" + id);
-    }
-
-    public boolean updateById(
-            int id,
-            String name,
-            Coordinates coordinates,
-            Boolean realHero,
-            Boolean hasToothpick,
-            double impactSpeed,
-            String soundtrackName,
-            Integer minutesOfWaiting,
-            Mood mood,
-            Car car
-    ) {
-        Optional<HumanBeing> oldOpt = findById(id);
-        if (oldOpt.isEmpty()) {
-            return false;
-        }
-
-        HumanBeing old = oldOpt.get();
-
-        HumanBeing updated = new HumanBeing(
-                id,                         // keep same id
-                name,
-                coordinates,
-                old.getCreationDate(),      // keep same creationDate
-                realHero,
-                hasToothpick,
-                impactSpeed,
-                soundtrackName,
-                minutesOfWaiting,
-                mood,
-                car
-        );
-
-        // remove old element and add updated
-        removeById(id);
-        stack.push(updated);
-
-        System.out.println("Updated element with id=" + id);
-        return true;
-    }
-
-
-}
+package manager;
+
+import model.Car;
+import model.Coordinates;
+import model.HumanBeing;
+import model.Mood;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores and manages the collection of HumanBeing objects.
+ * This is the "collection context" in the Command Pattern architecture.
+ * Safe to use from several threads: changes take the write lock, queries the read lock,
+ * and the element list is handed out as an immutable snapshot.
+ * Every change bumps the version; recent changes are kept in a ChangeLog for clients that cache the collection.
+ */
+
+public class CollectionManager {
+
+    private final ElementStore store;
+    private final LocalDate initializationDate = LocalDate.now();
+    private final String fileName;
+    private final SnapshotFormat format;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+    // immutable copy of the stack for readers, dropped by every change and rebuilt on demand
+    private volatile List<HumanBeing> snapshot;
+    // full saves write through the same temporary file and CSV writer, one at a time
+    private final Object saveMonitor = new Object();
+    private final CsvWriter csvWriter = new CsvWriter();
+    // Starts from the clock in microseconds, so versions handed out before a restart are older
+    // than any of this run and a client cache from then gets a full copy.
+    private volatile long version = System.currentTimeMillis() * 1000;
+    private final ChangeLog changes = new ChangeLog(version);
+
+    public static final long DEFAULT_COMPACT_THRESHOLD = 8L * 1024 * 1024;
+
+    // Optional change journal: <file>.journal, and <file>.journal.old while a compaction runs.
+    private final Path journalPath;
+    private final Path oldJournalPath;
+    private Journal journal;
+    private long compactThreshold;
+    private ExecutorService compactor;
+    private Future<?> compaction;
+
+    public CollectionManager(String fileName) {
+        this(fileName, SnapshotFormat.forFile(fileName));
+    }
+
+    public CollectionManager(String fileName, SnapshotFormat format) {
+        this(fileName, format, new IndexedStore());
+    }
+
+    // e.g. a ColumnarStore to keep large collections in primitive columns
+    public CollectionManager(String fileName, SnapshotFormat format, ElementStore store) {
+        this.fileName = fileName;
+        this.format = format;
+        this.store = store;
+        this.journalPath = Path.of(fileName + ".journal");
+        this.oldJournalPath = Path.of(fileName + ".journal.old");
+    }
+
+    /**
+     * Switches saving to journal mode: every change is appended to the journal
+     * and save only syncs it. Once the journal is larger than compactThreshold bytes,
+     * a new snapshot is written in the background and the journal starts over.
+     */
+    public void enableJournal(long compactThreshold) throws IOException {
+        writeLock.lock();
+        try {
+            if (journal != null) return;
+            this.compactThreshold = compactThreshold;
+            this.journal = new Journal(journalPath);
+            this.compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "journal-compactor");
+                t.setDaemon(true);
+                return t;
+            });
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public SnapshotFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Elements in stack order (bottom first).
+     * The list is an immutable snapshot; reading it never blocks and never sees a half-done change.
+     */
+    public List<HumanBeing> getElements() {
+        List<HumanBeing> current = snapshot;
+        if (current != null) return current;
+
+        readLock.lock();
+        try {
+            if (snapshot == null) snapshot = Collections.unmodifiableList(store.elements());
+            return snapshot;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Asks the store, so a ColumnarStore does not have to build the snapshot of objects.
+    public int size() {
+        readLock.lock();
+        try {
+            return store.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Grows by at least one with every change.
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * What a client that has the collection at the given version needs to catch up.
+     * A full copy if the change log does not go back that far (pass -1 when there is no copy yet).
+     */
+    public ChangeLog.Delta changesSince(long clientVersion) {
+        readLock.lock();
+        try {
+            ChangeLog.Delta delta = changes.since(clientVersion, version);
+            return delta != null ? delta : ChangeLog.full(version, getElements());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public void shuffle() {
+        writeLock.lock();
+        try {
+            store.shuffle();
+            changed();
+            changes.reset(version);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public LocalDate getInitializationDate() {
+        return initializationDate;
+    }
+
+    // Generates a unique id for new elements (used when adding from console).
+    public int generateNextId() {
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * After loading from file, setting nextId to (maxId + 1).
+     * then call this after reading CSV.
+     */
+    public void updateNextIdFromCollection() {
+        readLock.lock();
+        try {
+            nextId.set(store.maxId() + 1);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public Optional<HumanBeing> findById(int id) {
+        readLock.lock();
+        try {
+            return Optional.ofNullable(store.get(id));
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public boolean removeById(int id) {
+        writeLock.lock();
+        try {
+            if (store.remove(id) == null) {
+                return false;
+            }
+            log(j -> j.remove(id));
+            changed();
+            changes.remove(version, id);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void clear() {
+        writeLock.lock();
+        try {
+            store.clear();
+            log(Journal::clear);
+            changed();
+            changes.reset(version);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Repeated strings share one instance from the store's dictionary.
+    private String intern(String value) {
+        return store.getDictionary().intern(value);
+    }
+
+    private Car intern(Car car) {
+        return car == null ? null : new Car(intern(car.getName()), car.getCool());
+    }
+
+    // Called under the write lock after every change.
+    private void changed() {
+        version++;
+        snapshot = null;
+    }
+
+    // Smallest element in default order.
+    public Optional<HumanBeing> getMin() {
+        readLock.lock();
+        try {
+            return Optional.ofNullable(store.min());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Elements in descending default order.
+    public List<HumanBeing> getDescending() {
+        readLock.lock();
+        try {
+            return store.descending();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // Elements whose impactSpeed equals the given one, ordered by id.
+    public List<HumanBeing> filterByImpactSpeed(double impactSpeed) {
+        readLock.lock();
+        try {
+            return store.filterByImpactSpeed(impactSpeed);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Runs a compiled query (see QueryParser).
+     * Index lookups run under the read lock; a query without a usable index scans the snapshot without locking.
+     */
+    public List<HumanBeing> query(Query query) {
+        return query(query, Cancellation.NONE);
+    }
+
+    // @throws java.util.concurrent.CancellationException if cancel gives up on the scan
+    public List<HumanBeing> query(Query query, Cancellation cancel) {
+        if (!query.usesIndex()) return query.scan(getElements(), cancel);
+
+        readLock.lock();
+        try {
+            return query.run(store, cancel);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every element greater than the given one.
+     * @return number of removed elements
+     */
+    public int removeGreater(HumanBeing than) {
+        return removeGreater(than, Cancellation.NONE);
+    }
+
+    /**
+     * Like removeGreater(than), but gives up if cancel does before anything is removed or journaled.
+     * @throws java.util.concurrent.CancellationException then; the collection is unchanged
+     */
+    public int removeGreater(HumanBeing than, Cancellation cancel) {
+        writeLock.lock();
+        try {
+            cancel.check(0); // may have waited long for the lock
+            List<HumanBeing> removed = store.removeGreater(than, cancel);
+            if (removed.isEmpty()) {
+                return 0; // nothing changed: keep the version, so caches and client replicas stay valid
+            }
+            for (HumanBeing hb : removed) {
+                log(j -> j.remove(hb.getId()));
+            }
+            changed();
+            for (HumanBeing hb : removed) {
+                changes.remove(version, hb.getId());
+            }
+            return removed.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every element with the given minutesOfWaiting (null matches elements without a value).
+     * @return number of removed elements
+     */
+    public int removeAllByMinutesOfWaiting(Integer minutesOfWaiting) {
+        return removeAllByMinutesOfWaiting(minutesOfWaiting, Cancellation.NONE);
+    }
+
+    /**
+     * Like removeAllByMinutesOfWaiting(minutesOfWaiting), but gives up if cancel does before anything is removed or journaled.
+     * @throws java.util.concurrent.CancellationException then; the collection is unchanged
+     */
+    public int removeAllByMinutesOfWaiting(Integer minutesOfWaiting, Cancellation cancel) {
+        writeLock.lock();
+        try {
+            cancel.check(0); // may have waited long for the lock
+            List<HumanBeing> removed = store.removeAllByMinutesOfWaiting(minutesOfWaiting, cancel);
+            if (removed.isEmpty()) {
+                return 0; // nothing changed: keep the version, so caches and client replicas stay valid
+            }
+            for (HumanBeing hb : removed) {
+                log(j -> j.remove(hb.getId()));
+            }
+            changed();
+            for (HumanBeing hb : removed) {
+                changes.remove(version, hb.getId());
+            }
+            return removed.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void loadFromFile() {
+        writeLock.lock();
+        try {
+            Path path = Path.of(fileName);
+
+            // with a journal the snapshot may not have been written yet
+            if (Files.exists(path) || !hasJournal()) {
+                CsvLoader.Result result = format.read(path, store.getDictionary());
+
+                for (HumanBeing hb : result.getElements()) {
+                    if (store.contains(hb.getId())) {
+                        System.out.println("Skipped element with duplicate id=" + hb.getId());
+                        continue;
+                    }
+
+                    store.push(hb);
+                }
+
+                // elements before a bad line stay loaded, as before
+                if (result.getError() != null) {
+                    throw result.getError();
+                }
+            }
+
+            // snapshot first, then the rotated journal of an unfinished compaction, then the current one
+            int replayed = Journal.replay(oldJournalPath, replayTarget(), store.getDictionary())
+                    + Journal.replay(journalPath, replayTarget(), store.getDictionary());
+            if (replayed > 0) {
+                System.out.println("Replayed journal records: " + replayed);
+            }
+
+            updateNextIdFromCollection();
+
+            System.out.println("Loaded elements: " + store.size());
+
+        } catch (Exception e) {
+            System.out.println("Error while loading file: " + e.getMessage());
+        } finally {
+            changed();
+            changes.reset(version);
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Only the snapshot of the elements is taken under the lock;
+     * the file itself is written without blocking other threads.
+     */
+    public void saveToFile() {
+        writeLock.lock();
+        try {
+            if (journal != null) {
+                syncJournal();
+                return;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        synchronized (saveMonitor) {
+            try {
+                format.write(Path.of(fileName), getElements(), csvWriter);
+
+                // the snapshot now contains everything an old journal had
+                Files.deleteIfExists(oldJournalPath);
+                Files.deleteIfExists(journalPath);
+
+                System.out.println("Collection saved successfully.");
+
+            } catch (IOException e) {
+                System.out.println("Error while saving file: " + e.getMessage());
+            }
+        }
+    }
+
+    private void rotateJournal() throws IOException {
+        journal.close();
+        try {
+            if (Files.exists(oldJournalPath)) {
+                // a previous compaction failed: keep its records in front of the new ones
+                try (FileChannel old = FileChannel.open(oldJournalPath, StandardOpenOption.APPEND);
+                     FileChannel cur = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+                    long pos = 0;
+                    while (pos < cur.size()) pos += cur.transferTo(pos, cur.size() - pos, old);
+                    old.force(false);
+                }
+                Files.delete(journalPath);
+            } else {
+                Files.move(journalPath, oldJournalPath);
+            }
+        } finally {
+            journal = new Journal(journalPath);
+        }
+    }
+
+    private boolean hasJournal() {
+        return Files.exists(journalPath) || Files.exists(oldJournalPath);
+    }
+
+    private Journal.Target replayTarget() {
+        return new Journal.Target() {
+            @Override
+            public void upsert(HumanBeing hb) {
+                store.remove(hb.getId());
+                store.push(hb);
+            }
+
+            @Override
+            public void remove(int id) {
+                store.remove(id);
+            }
+
+            @Override
+            public void clear() {
+                store.clear();
+            }
+        };
+    }
+
+    private interface JournalWrite {
+        void write(Journal journal) throws IOException;
+    }
+
+    private void log(JournalWrite write) {
+        if (journal == null) return;
+        try {
+            write.write(journal);
+        } catch (IOException e) {
+            System.out.println("Error while writing journal: " + e.getMessage());
+        }
+    }
+
+    private void syncJournal() {
+        try {
+            journal.sync();
+            System.out.println("Collection saved successfully.");
+        } catch (IOException e) {
+            System.out.println("Error while saving file: " + e.getMessage());
+            return;
+        }
+
+        if (journal.size() >= compactThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Rotates the journal and writes a snapshot of the current elements on the compactor thread.
+     * Until the snapshot is in place the rotated journal is kept, so a crash loses nothing.
+     */
+    private void compact() {
+        if (compaction != null && !compaction.isDone()) return;
+
+        try {
+            rotateJournal();
+        } catch (IOException e) {
+            System.out.println("Error while rotating journal: " + e.getMessage());
+            return;
+        }
+
+        List<HumanBeing> elements = store.elements();
+        compaction = compactor.submit(() -> {
+            try {
+                synchronized (saveMonitor) {
+                    format.write(Path.of(fileName), elements, csvWriter);
+                }
+                Files.deleteIfExists(oldJournalPath);
+            } catch (IOException e) {
+                System.out.println("Error while compacting journal: " + e.getMessage());
+            }
+        });
+    }
+
+    public void addHumanBeing(
+            String name,
+            Coordinates coordinates,
+            Boolean realHero,
+            Boolean hasToothpick,
+            double impactSpeed,
+            String soundtrackName,
+            Integer minutesOfWaiting,
+            Mood mood,
+            Car car
+    ) {
+        writeLock.lock();
+        try {
+            addNew(name, coordinates, realHero, hasToothpick, impactSpeed,
+                    soundtrackName, minutesOfWaiting, mood, car);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void addNew(
+            String name,
+            Coordinates coordinates,
+            Boolean realHero,
+            Boolean hasToothpick,
+            double impactSpeed,
+            String soundtrackName,
+            Integer minutesOfWaiting,
+            Mood mood,
+            Car car
+    ) {
+        int id = generateNextId();
+        LocalDate creationDate = LocalDate.now();
+
+        HumanBeing hb = new HumanBeing(
+                id,
+                name,
+                coordinates,
+                creationDate,
+                realHero,
+                hasToothpick,
+                impactSpeed,
+                intern(soundtrackName),
+                minutesOfWaiting,
+                mood,
+                intern(car)
+        );
+
+        store.push(hb);
+        log(j -> j.add(hb));
+        changed();
+        changes.upsert(version, hb);
+        System.out.println("Added element with id=" + id);
+    }
+
+    /**
+     * Adds the element only if it would become the new minimum.
+     * The new id is greater than every existing one, so an equal impactSpeed is never smaller.
+     */
+    public boolean addHumanBeingIfMin(
+            String name,
+            Coordinates coordinates,
+            Boolean realHero,
+            Boolean hasToothpick,
+            double impactSpeed,
+            String soundtrackName,
+            Integer minutesOfWaiting,
+            Mood mood,
+            Car car
+    ) {
+        writeLock.lock();
+        try {
+            HumanBeing min = store.min();
+            if (min != null && Double.compare(impactSpeed, min.getImpactSpeed()) >= 0) {
+                return false;
+            }
+
+            addNew(name, coordinates, realHero, hasToothpick, impactSpeed,
+                    soundtrackName, minutesOfWaiting, mood, car);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean updateById(
+            int id,
+            String name,
+            Coordinates coordinates,
+            Boolean realHero,
+            Boolean hasToothpick,
+            double impactSpeed,
+            String soundtrackName,
+            Integer minutesOfWaiting,
+            Mood mood,
+            Car car
+    ) {
+        writeLock.lock();
+        try {
+            HumanBeing old = store.get(id);
+            if (old == null) {
+                return false;
+            }
+
+            HumanBeing updated = new HumanBeing(
+                    id,                         // keep same id
+                    name,
+                    coordinates,
+                    old.getCreationDate(),      // keep same creationDate
+                    realHero,
+                    hasToothpick,
+                    impactSpeed,
+                    intern(soundtrackName),
+                    minutesOfWaiting,
+                    mood,
+                    intern(car)
+            );
+
+            // remove old element and add updated
+            store.remove(id);
+            store.push(updated);
+            log(j -> j.update(updated));
+            changed();
+            changes.upsert(version, updated);
+
+            System.out.println("Updated element with id=" + id);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+
+}
@@ -0,0 +1,397 @@
+package manager;
+
+import model.Car;
+import model.Coordinates;
+import model.HumanBeing;
+import model.Mood;
+import util.IntIntHashMap;
+import util.StringDictionary;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Struct-of-arrays store: every field lives in its own primitive column
+ * (int[], double[], epoch days in long[], mood ordinals in byte[], booleans and nulls in bitmaps),
+ * one row per element. Repeated strings (soundtrackName, car name) are kept as dictionary ordinals. HumanBeing objects are only created when a query returns them.
+ * Uses far less heap than IndexedStore and scans a single column for filters,
+ * but ordered queries (min, descending) are scans/sorts instead of index lookups.
+ */
+public class ColumnarStore implements ElementStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Mood[] MOODS = Mood.values();
+    private static final int NO_CAR = -1;
+
+    // columns, indexed by row
+    private int[] ids;
+    private int[] xs;
+    private int[] ys;
+    private long[] creationDays;
+    private double[] impactSpeeds;
+    private int[] minutesOfWaiting;
+    private byte[] moods;
+    private String[] names;
+    private int[] soundtrackNames; // dictionary ordinals
+    private int[] carNames; // dictionary ordinals, NO_CAR = no car
+
+    // flags, indexed by row
+    private final BitSet live = new BitSet();
+    private final BitSet realHero = new BitSet();
+    private final BitSet hasToothpickSet = new BitSet();
+    private final BitSet hasToothpick = new BitSet();
+    private final BitSet minutesSet = new BitSet();
+    private final BitSet carCoolSet = new BitSet();
+    private final BitSet carCool = new BitSet();
+
+    // stack order as a doubly linked list of rows (head = bottom), free rows are chained through next
+    private int[] prev;
+    private int[] next;
+    private int head;
+    private int tail;
+    private int free;
+    private int rows; // rows ever used, live or free
+    private int size;
+
+    private final IntIntHashMap rowById = new IntIntHashMap();
+    private final StringDictionary dictionary;
+
+    public ColumnarStore() {
+        this(new StringDictionary());
+    }
+
+    public ColumnarStore(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        reset();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public HumanBeing get(int id) {
+        int row = rowById.get(id);
+        return row == IntIntHashMap.NO_VALUE ? null : materialize(row);
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return rowById.containsKey(id);
+    }
+
+    @Override
+    public void push(HumanBeing hb) {
+        int row = allocateRow();
+
+        ids[row] = hb.getId();
+        xs[row] = hb.getCoordinates().getX();
+        ys[row] = hb.getCoordinates().getY();
+        creationDays[row] = hb.getCreationDate().toEpochDay();
+        impactSpeeds[row] = hb.getImpactSpeed();
+        moods[row] = (byte) hb.getMood().ordinal();
+        names[row] = hb.getName();
+        soundtrackNames[row] = dictionary.ordinal(hb.getSoundtrackName());
+
+        realHero.set(row, hb.getRealHero());
+        hasToothpickSet.set(row, hb.getHasToothpick() != null);
+        hasToothpick.set(row, Boolean.TRUE.equals(hb.getHasToothpick()));
+        minutesSet.set(row, hb.getMinutesOfWaiting() != null);
+        minutesOfWaiting[row] = hb.getMinutesOfWaiting() == null ? 0 : hb.getMinutesOfWaiting();
+
+        Car car = hb.getCar();
+        carNames[row] = car == null ? NO_CAR : dictionary.ordinal(car.getName());
+        carCoolSet.set(row, car != null && car.getCool() != null);
+        carCool.set(row, car != null && Boolean.TRUE.equals(car.getCool()));
+
+        live.set(row);
+        link(row);
+        rowById.put(hb.getId(), row);
+        size++;
+    }
+
+    @Override
+    public HumanBeing remove(int id) {
+        int row = rowById.get(id);
+        if (row == IntIntHashMap.NO_VALUE) {
+            return null;
+        }
+        HumanBeing hb = materialize(row);
+        removeRow(row);
+        return hb;
+    }
+
+    @Override
+    public void clear() {
+        reset();
+    }
+
+    @Override
+    public void shuffle() {
+        int[] order = rowsInOrder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        head = -1;
+        tail = -1;
+        for (int row : order) link(row);
+    }
+
+    @Override
+    public List<HumanBeing> elements() {
+        List<HumanBeing> result = new ArrayList<>(size);
+        for (int row = head; row != -1; row = next[row]) {
+            result.add(materialize(row));
+        }
+        return result;
+    }
+
+    @Override
+    public HumanBeing min() {
+        int best = -1;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            if (best == -1 || compareRows(row, impactSpeeds[best], ids[best]) < 0) best = row;
+        }
+        return best == -1 ? null : materialize(best);
+    }
+
+    @Override
+    public List<HumanBeing> descending() {
+        List<HumanBeing> result = elements();
+        result.sort(Collections.reverseOrder());
+        return result;
+    }
+
+    // Scans the impactSpeed column only; matches are ordered by id without creating objects.
+    @Override
+    public List<HumanBeing> filterByImpactSpeed(double impactSpeed) {
+        long[] matches = new long[16];
+        int count = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            if (Double.compare(impactSpeeds[row], impactSpeed) == 0) {
+                if (count == matches.length) matches = Arrays.copyOf(matches, count * 2);
+                matches[count++] = ((long) ids[row] << 32) | row; // ids are > 0
+            }
+        }
+        Arrays.sort(matches, 0, count);
+
+        List<HumanBeing> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(materialize((int) matches[i]));
+        }
+        return result;
+    }
+
+    // No index: scans the impactSpeed column and creates objects for the matches only.
+    // Bounds use Double.compare, the order of IndexedStore's sorted index (-0.0 < 0.0).
+    @Override
+    public List<HumanBeing> rangeByImpactSpeed(double from, boolean fromInclusive, double to, boolean toInclusive) {
+        List<HumanBeing> result = new ArrayList<>();
+        if (Double.isNaN(from) || Double.isNaN(to)) {
+            return result;
+        }
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            int fromCmp = Double.compare(impactSpeeds[row], from);
+            int toCmp = Double.compare(impactSpeeds[row], to);
+            boolean above = fromInclusive ? fromCmp >= 0 : fromCmp > 0;
+            boolean below = toInclusive ? toCmp <= 0 : toCmp < 0;
+            if (above && below) {
+                result.add(materialize(row));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Override
+    public List<HumanBeing> findByMinutesOfWaiting(Integer minutes) {
+        List<HumanBeing> result = new ArrayList<>();
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            boolean matches = minutes == null
+                    ? !minutesSet.get(row)
+                    : minutesSet.get(row) && minutesOfWaiting[row] == minutes;
+            if (matches) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+
+    // Finds the rows first, so a cancelled scan removes nothing.
+    @Override
+    public List<HumanBeing> removeGreater(HumanBeing than, Cancellation cancel) {
+        BitSet matches = new BitSet(ids.length);
+        int scanned = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            cancel.check(scanned++);
+            if (compareRows(row, than.getImpactSpeed(), than.getId()) > 0) {
+                matches.set(row);
+            }
+        }
+        return removeRows(matches);
+    }
+
+    @Override
+    public List<HumanBeing> removeAllByMinutesOfWaiting(Integer minutes, Cancellation cancel) {
+        BitSet matches = new BitSet(ids.length);
+        int scanned = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            cancel.check(scanned++);
+            boolean matched = minutes == null
+                    ? !minutesSet.get(row)
+                    : minutesSet.get(row) && minutesOfWaiting[row] == minutes;
+            if (matched) {
+                matches.set(row);
+            }
+        }
+        return removeRows(matches);
+    }
+
+    private List<HumanBeing> removeRows(BitSet rows) {
+        List<HumanBeing> removed = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            removed.add(materialize(row));
+            removeRow(row);
+        }
+        return removed;
+    }
+
+    @Override
+    public int maxId() {
+        int max = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            max = Math.max(max, ids[row]);
+        }
+        return max;
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // Same order as HumanBeing.compareTo.
+    private int compareRows(int row, double impactSpeed, int id) {
+        int cmp = Double.compare(impactSpeeds[row], impactSpeed);
+        return cmp != 0 ? cmp : Integer.compare(ids[row], id);
+    }
+
+    private HumanBeing materialize(int row) {
+        Car car = null;
+        if (carNames[row] != NO_CAR) {
+            car = new Car(dictionary.get(carNames[row]), carCoolSet.get(row) ? carCool.get(row) : null);
+        }
+
+        return new HumanBeing(
+                ids[row],
+                names[row],
+                new Coordinates(xs[row], ys[row]),
+                LocalDate.ofEpochDay(creationDays[row]),
+                realHero.get(row),
+                hasToothpickSet.get(row) ? hasToothpick.get(row) : null,
+                impactSpeeds[row],
+                dictionary.get(soundtrackNames[row]),
+                minutesSet.get(row) ? minutesOfWaiting[row] : null,
+                MOODS[moods[row]],
+                car
+        );
+    }
+
+    private int[] rowsInOrder() {
+        int[] order = new int[size];
+        int i = 0;
+        for (int row = head; row != -1; row = next[row]) {
+            order[i++] = row;
+        }
+        return order;
+    }
+
+    private void link(int row) {
+        prev[row] = tail;
+        next[row] = -1;
+        if (tail == -1) head = row;
+        else next[tail] = row;
+        tail = row;
+    }
+
+    private void removeRow(int row) {
+        if (prev[row] == -1) head = next[row];
+        else next[prev[row]] = next[row];
+        if (next[row] == -1) tail = prev[row];
+        else prev[next[row]] = prev[row];
+
+        rowById.remove(ids[row]);
+        live.clear(row);
+        names[row] = null; // let the name be collected
+
+        next[row] = free;
+        free = row;
+        size--;
+    }
+
+    private int allocateRow() {
+        if (free != -1) {
+            int row = free;
+            free = next[row];
+            return row;
+        }
+        if (rows == ids.length) grow(rows * 2);
+        return rows++;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        creationDays = Arrays.copyOf(creationDays, capacity);
+        impactSpeeds = Arrays.copyOf(impactSpeeds, capacity);
+        minutesOfWaiting = Arrays.copyOf(minutesOfWaiting, capacity);
+        moods = Arrays.copyOf(moods, capacity);
+        names = Arrays.copyOf(names, capacity);
+        soundtrackNames = Arrays.copyOf(soundtrackNames, capacity);
+        carNames = Arrays.copyOf(carNames, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+
+    private void reset() {
+        ids = new int[INITIAL_CAPACITY];
+        xs = new int[INITIAL_CAPACITY];
+        ys = new int[INITIAL_CAPACITY];
+        creationDays = new long[INITIAL_CAPACITY];
+        impactSpeeds = new double[INITIAL_CAPACITY];
+        minutesOfWaiting = new int[INITIAL_CAPACITY];
+        moods = new byte[INITIAL_CAPACITY];
+        names = new String[INITIAL_CAPACITY];
+        soundtrackNames = new int[INITIAL_CAPACITY];
+        carNames = new int[INITIAL_CAPACITY];
+        prev = new int[INITIAL_CAPACITY];
+        next = new int[INITIAL_CAPACITY];
+
+        live.clear();
+        realHero.clear();
+        hasToothpickSet.clear();
+        hasToothpick.clear();
+        minutesSet.clear();
+        carCoolSet.clear();
+        carCool.clear();
+
+        head = -1;
+        tail = -1;
+        free = -1;
+        rows = 0;
+        size = 0;
+        rowById.clear();
+    }
+}
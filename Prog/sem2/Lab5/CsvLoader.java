@@ -0,0 +1,344 @@
+package manager;
+
+import model.Car;
+import model.Coordinates;
+import model.HumanBeing;
+import model.Mood;
+import util.StringDictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads the CSV collection file.
+ * The file is memory-mapped and split into line-aligned chunks that are parsed in parallel
+ * on a fork-join pool; fields are located and decoded directly on the mapped bytes.
+ * Produces the same elements (in file order) as reading it line by line with split(",").
+ * Repeated values (soundtrackName, car name) are taken from a StringDictionary,
+ * so each distinct value is allocated once.
+ */
+public class CsvLoader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private static final int FIELDS = 13;
+    private static final Mood[] MOODS = Mood.values();
+
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+    private final StringDictionary dictionary;
+
+    public CsvLoader() {
+        this(new StringDictionary());
+    }
+
+    public CsvLoader(StringDictionary dictionary) {
+        this(DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool(), dictionary);
+    }
+
+    public CsvLoader(int chunkSize, ForkJoinPool pool, StringDictionary dictionary) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be > 0");
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Loading stops at the first bad line, like the sequential reader did:
+     * the result then holds the elements before that line and the error.
+     */
+    public static class Result {
+        private final List<HumanBeing> elements;
+        private final Exception error;
+
+        public Result(List<HumanBeing> elements, Exception error) {
+            this.elements = elements;
+            this.error = error;
+        }
+
+        public List<HumanBeing> getElements() {
+            return elements;
+        }
+
+        // @return null if the whole file was parsed
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    public Result load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+
+            List<ForkJoinTask<Result>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                        bounds[i], bounds[i + 1] - bounds[i]);
+                tasks.add(pool.submit(() -> new ChunkParser(chunk, dictionary).parse()));
+            }
+
+            // merge in file order, stopping at the first chunk that failed
+            List<HumanBeing> elements = new ArrayList<>();
+            Exception error = null;
+            for (ForkJoinTask<Result> task : tasks) {
+                if (error != null) {
+                    task.cancel(false);
+                    continue;
+                }
+                Result part = task.join();
+                elements.addAll(part.getElements());
+                error = part.getError();
+            }
+            return new Result(elements, error);
+        }
+    }
+
+    // Chunk start offsets plus the file size; every inner bound is just after a '\n'.
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long pos = chunkSize;
+        while (pos < size) {
+            long lineEnd = findNewline(channel, pos, probe);
+            if (lineEnd < 0) break;
+            if (lineEnd + 1 < size) bounds.add(lineEnd + 1);
+            pos = lineEnd + 1 + chunkSize;
+        }
+
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    private static long findNewline(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) return -1;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return pos + i;
+            }
+            pos += read;
+        }
+    }
+
+    /**
+     * Parses one chunk. Lines end with \n, \r\n or \r (same as BufferedReader.readLine).
+     * Numbers, dates and moods are decoded from the bytes; anything unusual falls back
+     * to the JDK parser so values and error messages stay identical.
+     */
+    private static class ChunkParser {
+        private static final int CACHE_SIZE = 1024;
+
+        private final ByteBuffer buf;
+        private final StringDictionary dictionary;
+        private final int[] start = new int[FIELDS];
+        private final int[] end = new int[FIELDS];
+        private byte[] scratch = new byte[256];
+
+        // direct-mapped cache: bytes of a recently seen value -> its dictionary string
+        private final byte[][] cachedBytes = new byte[CACHE_SIZE][];
+        private final String[] cachedStrings = new String[CACHE_SIZE];
+
+        ChunkParser(ByteBuffer buf, StringDictionary dictionary) {
+            this.buf = buf;
+            this.dictionary = dictionary;
+        }
+
+        Result parse() {
+            List<HumanBeing> elements = new ArrayList<>();
+            int limit = buf.limit();
+            int lineStart = 0;
+
+            try {
+                while (lineStart < limit) {
+                    int lineEnd = lineStart;
+                    byte b = 0;
+                    while (lineEnd < limit && (b = buf.get(lineEnd)) != '\n' && b != '\r') lineEnd++;
+
+                    if (!isBlank(lineStart, lineEnd)) {
+                        elements.add(parseLine(lineStart, lineEnd));
+                    }
+
+                    lineStart = lineEnd + 1;
+                    if (b == '\r' && lineStart < limit && buf.get(lineStart) == '\n') lineStart++;
+                }
+            } catch (Exception e) {
+                return new Result(elements, e);
+            }
+            return new Result(elements, null);
+        }
+
+        // same as line.trim().isEmpty()
+        private boolean isBlank(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if ((buf.get(i) & 0xFF) > ' ') return false;
+            }
+            return true;
+        }
+
+        private HumanBeing parseLine(int from, int to) {
+            // missing trailing fields are empty, extra fields are ignored
+            int field = 0;
+            start[0] = from;
+            for (int i = from; i < to && field < FIELDS - 1; i++) {
+                if (buf.get(i) == ',') {
+                    end[field] = i;
+                    start[++field] = i + 1;
+                }
+            }
+            end[field] = field == FIELDS - 1 ? indexOfComma(start[field], to) : to;
+            for (int f = field + 1; f < FIELDS; f++) {
+                start[f] = to;
+                end[f] = to;
+            }
+
+            return new HumanBeing(
+                    parseInt(0),
+                    string(1),
+                    new Coordinates(
+                            parseInt(2),
+                            parseInt(3)
+                    ),
+                    parseDate(4),
+                    parseBoolean(5),
+                    isEmpty(6) ? null : parseBoolean(6),
+                    Double.parseDouble(string(7)),
+                    dictionaryString(8),
+                    isEmpty(9) ? null : parseInt(9),
+                    parseMood(10),
+                    isEmpty(11) ? null :
+                            new Car(
+                                    dictionaryString(11),
+                                    isEmpty(12) ? null : parseBoolean(12)
+                            )
+            );
+        }
+
+        private int indexOfComma(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buf.get(i) == ',') return i;
+            }
+            return to;
+        }
+
+        private boolean isEmpty(int f) {
+            return start[f] == end[f];
+        }
+
+        private String string(int f) {
+            int len = end[f] - start[f];
+            if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(start[f], scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        // A repeated value is found by its bytes, no String is created for it.
+        private String dictionaryString(int f) {
+            int from = start[f];
+            int len = end[f] - from;
+            int hash = len;
+            for (int i = from; i < end[f]; i++) hash = 31 * hash + buf.get(i);
+            int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+
+            byte[] cached = cachedBytes[slot];
+            if (cached != null && cached.length == len) {
+                int i = 0;
+                while (i < len && cached[i] == buf.get(from + i)) i++;
+                if (i == len) return cachedStrings[slot];
+            }
+
+            byte[] bytes = new byte[len];
+            buf.get(from, bytes, 0, len);
+            String value = dictionary.intern(new String(bytes, StandardCharsets.UTF_8));
+            cachedBytes[slot] = bytes;
+            cachedStrings[slot] = value;
+            return value;
+        }
+
+        private int parseInt(int f) {
+            int i = start[f];
+            int to = end[f];
+            boolean negative = false;
+            if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                negative = buf.get(i) == '-';
+                i++;
+            }
+            if (i == to || to - i > 10) return Integer.parseInt(string(f));
+
+            long value = 0;
+            for (; i < to; i++) {
+                int digit = buf.get(i) - '0';
+                if (digit < 0 || digit > 9) return Integer.parseInt(string(f));
+                value = value * 10 + digit;
+            }
+            if (negative) value = -value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) return Integer.parseInt(string(f));
+            return (int) value;
+        }
+
+        // Boolean.parseBoolean: "true" in any case
+        private boolean parseBoolean(int f) {
+            if (end[f] - start[f] != 4) return false;
+            int i = start[f];
+            return (buf.get(i) | 0x20) == 't' && (buf.get(i + 1) | 0x20) == 'r'
+                    && (buf.get(i + 2) | 0x20) == 'u' && (buf.get(i + 3) | 0x20) == 'e';
+        }
+
+        // yyyy-MM-dd, everything else goes through LocalDate.parse
+        private LocalDate parseDate(int f) {
+            int i = start[f];
+            if (end[f] - i == 10 && buf.get(i + 4) == '-' && buf.get(i + 7) == '-') {
+                int year = digits(i, 4);
+                int month = digits(i + 5, 2);
+                int day = digits(i + 8, 2);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    try {
+                        return LocalDate.of(year, month, day);
+                    } catch (DateTimeException ignored) {
+                        // invalid date: let LocalDate.parse report it
+                    }
+                }
+            }
+            return LocalDate.parse(string(f));
+        }
+
+        private int digits(int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                int digit = buf.get(i) - '0';
+                if (digit < 0 || digit > 9) return -1;
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private Mood parseMood(int f) {
+            int len = end[f] - start[f];
+            for (Mood mood : MOODS) {
+                String name = mood.name();
+                if (name.length() != len) continue;
+                int i = 0;
+                while (i < len && buf.get(start[f] + i) == name.charAt(i)) i++;
+                if (i == len) return mood;
+            }
+            return Mood.valueOf(string(f));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package manager;
+
+import model.HumanBeing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the collection in CSV format (the format read by CsvLoader).
+ * Rows are encoded into one reusable buffer that is flushed with large writes.
+ * The data goes to a temporary file which is fsynced and then renamed over the target,
+ * so a crash in the middle of saving never leaves a half-written file.
+ * One writer can be reused for many saves (not concurrently), keeping its 1 MB buffer.
+ */
+public class CsvWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder row = new StringBuilder(256);
+
+    public void write(Path target, Iterable<HumanBeing> elements) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                buffer.clear();
+                for (HumanBeing hb : elements) {
+                    row.setLength(0);
+                    appendRow(row, hb);
+                    row.append('\n');
+                    encode(channel);
+                }
+                flush(channel);
+                channel.force(true);
+            }
+            replace(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static void appendRow(StringBuilder sb, HumanBeing hb) {
+        sb.append(hb.getId()).append(',')
+                .append(hb.getName()).append(',')
+                .append(hb.getCoordinates().getX()).append(',')
+                .append(hb.getCoordinates().getY()).append(',')
+                .append(hb.getCreationDate()).append(',')
+                .append(hb.getRealHero()).append(',');
+        if (hb.getHasToothpick() != null) sb.append(hb.getHasToothpick());
+        sb.append(',')
+                .append(hb.getImpactSpeed()).append(',')
+                .append(hb.getSoundtrackName()).append(',');
+        if (hb.getMinutesOfWaiting() != null) sb.append(hb.getMinutesOfWaiting());
+        sb.append(',')
+                .append(hb.getMood()).append(',');
+        if (hb.getCar() != null) {
+            sb.append(hb.getCar().getName());
+            sb.append(',');
+            if (hb.getCar().getCool() != null) sb.append(hb.getCar().getCool());
+        } else {
+            sb.append(',');
+        }
+    }
+
+    private void encode(FileChannel channel) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(row);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isUnderflow()) break;
+            if (result.isOverflow()) {
+                flush(channel);
+            } else {
+                result.throwException();
+            }
+        }
+        encoder.reset();
+    }
+
+    private void flush(FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    static void replace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    // The rename lives in the directory, so it is only durable once the directory itself is fsynced.
+    private static void syncDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // some platforms (Windows) cannot open a directory; the file itself is already synced
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package manager;
+
+import model.HumanBeing;
+import util.StringDictionary;
+
+import java.util.List;
+
+/**
+ * Backing storage of CollectionManager.
+ * Keeps the elements in stack order and answers the queries the commands need.
+ * Implementations are not thread-safe, CollectionManager calls them under its lock.
+ */
+public interface ElementStore {
+
+    int size();
+
+    // @return element with the given id or null
+    HumanBeing get(int id);
+
+    boolean contains(int id);
+
+    // Puts the element on top of the stack. Its id must not be in the store yet.
+    void push(HumanBeing hb);
+
+    // @return removed element or null if there was no such id
+    HumanBeing remove(int id);
+
+    void clear();
+
+    void shuffle();
+
+    // Elements in stack order (bottom first).
+    List<HumanBeing> elements();
+
+    // Smallest element in default order (impactSpeed, then id) or null if empty.
+    HumanBeing min();
+
+    // Elements in descending default order.
+    List<HumanBeing> descending();
+
+    // Elements whose impactSpeed equals the given one, ordered by id.
+    List<HumanBeing> filterByImpactSpeed(double impactSpeed);
+
+    // Elements with impactSpeed between from and to (either may be infinite), in default order.
+    List<HumanBeing> rangeByImpactSpeed(double from, boolean fromInclusive, double to, boolean toInclusive);
+
+    // Elements with the given minutesOfWaiting (null matches elements without a value), in any order.
+    List<HumanBeing> findByMinutesOfWaiting(Integer minutesOfWaiting);
+
+    // The remove methods below may give up through cancel (CancellationException), but only before removing anything.
+
+    // @return removed elements
+    List<HumanBeing> removeGreater(HumanBeing than, Cancellation cancel);
+
+    // @return removed elements (null matches elements without a value)
+    List<HumanBeing> removeAllByMinutesOfWaiting(Integer minutesOfWaiting, Cancellation cancel);
+
+    // @return largest id or 0 if empty
+    int maxId();
+
+    // Dictionary for the repeated strings (soundtrackName, car name) of the stored elements.
+    StringDictionary getDictionary();
+
+    /**
+     * The store for -Dstore: "indexed" (IndexedStore) or "columnar" (ColumnarStore).
+     * @throws IllegalArgumentException for any other name
+     */
+    static ElementStore create(String kind) {
+        switch (kind) {
+            case "indexed":
+                return new IndexedStore();
+            case "columnar":
+                return new ColumnarStore();
+            default:
+                throw new IllegalArgumentException("Unknown store '" + kind + "', use indexed or columnar");
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package manager;
+
+import model.Coordinates;
+import model.HumanBeing;
+import model.Mood;
+import util.IntHashMap;
+import util.StringDictionary;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Default store: HumanBeing objects in stack order plus indexes
+ * by id, by default order and by minutesOfWaiting.
+ * The stack is a doubly linked list reached through the id index, so removing any element is O(1).
+ */
+public class IndexedStore implements ElementStore {
+
+    // One element in stack order.
+    private static final class Node {
+        final HumanBeing hb;
+        Node prev;
+        Node next;
+
+        Node(HumanBeing hb) {
+            this.hb = hb;
+        }
+    }
+
+    // stack order, head = bottom
+    private Node head;
+    private Node tail;
+    // id -> node of the element, kept in sync with the list by every mutating method
+    private final IntHashMap<Node> byId = new IntHashMap<>();
+    // elements in default order (impactSpeed, then id), see HumanBeing.compareTo
+    private final TreeSet<HumanBeing> sorted = new TreeSet<>();
+    // minutesOfWaiting -> (id -> element), the null key holds elements without a value
+    private final Map<Integer, IntHashMap<HumanBeing>> byMinutesOfWaiting = new HashMap<>();
+    private final StringDictionary dictionary = new StringDictionary();
+
+    @Override
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public HumanBeing get(int id) {
+        Node node = byId.get(id);
+        return node == null ? null : node.hb;
+    }
+
+    @Override
+    public boolean contains(int id) {
+        return byId.containsKey(id);
+    }
+
+    @Override
+    public void push(HumanBeing hb) {
+        Node node = new Node(hb);
+        link(node);
+        byId.put(hb.getId(), node);
+        sorted.add(hb);
+        byMinutesOfWaiting.computeIfAbsent(hb.getMinutesOfWaiting(), k -> new IntHashMap<>()).put(hb.getId(), hb);
+    }
+
+    @Override
+    public HumanBeing remove(int id) {
+        Node node = byId.get(id);
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        unindex(node.hb);
+        return node.hb;
+    }
+
+    @Override
+    public void clear() {
+        head = null;
+        tail = null;
+        byId.clear();
+        sorted.clear();
+        byMinutesOfWaiting.clear();
+    }
+
+    @Override
+    public void shuffle() {
+        Node[] order = new Node[byId.size()];
+        int i = 0;
+        for (Node node = head; node != null; node = node.next) {
+            order[i++] = node;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Node tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        head = null;
+        tail = null;
+        for (Node node : order) link(node);
+    }
+
+    @Override
+    public List<HumanBeing> elements() {
+        List<HumanBeing> result = new ArrayList<>(byId.size());
+        for (Node node = head; node != null; node = node.next) {
+            result.add(node.hb);
+        }
+        return result;
+    }
+
+    @Override
+    public HumanBeing min() {
+        return sorted.isEmpty() ? null : sorted.first();
+    }
+
+    // No sorting needed: the index is walked backwards.
+    @Override
+    public List<HumanBeing> descending() {
+        return new ArrayList<>(sorted.descendingSet());
+    }
+
+    @Override
+    public List<HumanBeing> filterByImpactSpeed(double impactSpeed) {
+        if (impactSpeed <= -64) {
+            return new ArrayList<>(); // no valid element can have such a speed
+        }
+        return new ArrayList<>(sorted.subSet(
+                speedBound(impactSpeed, 1), true,
+                speedBound(impactSpeed, Integer.MAX_VALUE), true));
+    }
+
+    // A slice of the sorted index.
+    @Override
+    public List<HumanBeing> rangeByImpactSpeed(double from, boolean fromInclusive, double to, boolean toInclusive) {
+        int cmp = Double.compare(from, to);
+        if (Double.isNaN(from) || Double.isNaN(to) || to <= -64 || cmp > 0 || cmp == 0 && !(fromInclusive && toInclusive)) {
+            return new ArrayList<>(); // also keeps the sub-set bounds below in order
+        }
+
+        NavigableSet<HumanBeing> range = sorted;
+        if (from > -64) {
+            range = fromInclusive
+                    ? range.tailSet(speedBound(from, 1), true)
+                    : range.tailSet(speedBound(from, Integer.MAX_VALUE), false);
+        }
+        if (to != Double.POSITIVE_INFINITY || !toInclusive) { // elements may have an infinite speed
+            range = toInclusive
+                    ? range.headSet(speedBound(to, Integer.MAX_VALUE), true)
+                    : range.headSet(speedBound(to, 1), false);
+        }
+        return new ArrayList<>(range);
+    }
+
+    @Override
+    public List<HumanBeing> findByMinutesOfWaiting(Integer minutesOfWaiting) {
+        IntHashMap<HumanBeing> bucket = byMinutesOfWaiting.get(minutesOfWaiting);
+        List<HumanBeing> result = new ArrayList<>(bucket == null ? 0 : bucket.size());
+        if (bucket != null) {
+            bucket.forEachValue(result::add);
+        }
+        return result;
+    }
+
+    // A cut of the tail of the sorted index: nothing to scan, so cancel is not checked.
+    @Override
+    public List<HumanBeing> removeGreater(HumanBeing than, Cancellation cancel) {
+        List<HumanBeing> removed = new ArrayList<>(sorted.tailSet(than, false));
+        for (HumanBeing hb : removed) {
+            unlink(byId.get(hb.getId()));
+            unindex(hb);
+        }
+        return removed;
+    }
+
+    // Only the matching bucket of the inverted index is visited.
+    @Override
+    public List<HumanBeing> removeAllByMinutesOfWaiting(Integer minutesOfWaiting, Cancellation cancel) {
+        IntHashMap<HumanBeing> bucket = byMinutesOfWaiting.remove(minutesOfWaiting);
+        if (bucket == null) {
+            return new ArrayList<>();
+        }
+
+        List<HumanBeing> removed = new ArrayList<>(bucket.size());
+        bucket.forEachValue(removed::add);
+        for (HumanBeing hb : removed) {
+            unlink(byId.remove(hb.getId()));
+            sorted.remove(hb);
+        }
+        return removed;
+    }
+
+    @Override
+    public int maxId() {
+        int max = 0;
+        for (Node node = head; node != null; node = node.next) {
+            max = Math.max(max, node.hb.getId());
+        }
+        return max;
+    }
+
+    @Override
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    private void unindex(HumanBeing hb) {
+        byId.remove(hb.getId());
+        sorted.remove(hb);
+
+        IntHashMap<HumanBeing> bucket = byMinutesOfWaiting.get(hb.getMinutesOfWaiting());
+        if (bucket != null) {
+            bucket.remove(hb.getId());
+            if (bucket.isEmpty()) byMinutesOfWaiting.remove(hb.getMinutesOfWaiting());
+        }
+    }
+
+    // Puts the node on top of the stack.
+    private void link(Node node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) head = node;
+        else tail.next = node;
+        tail = node;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev == null) head = node.next;
+        else node.prev.next = node.next;
+        if (node.next == null) tail = node.prev;
+        else node.next.prev = node.prev;
+    }
+
+    // Search key for the sorted index: compareTo only looks at impactSpeed and id.
+    private static HumanBeing speedBound(double impactSpeed, int id) {
+        return new HumanBeing(id, "bound", new Coordinates(0, 0), LocalDate.EPOCH,
+                false, null, impactSpeed, "", null, Mood.SORROW, null);
+    }
+}
@@ -0,0 +1,144 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hash map with primitive int keys (no Integer boxing).
+ * Open addressing with linear probing, null values are not allowed
+ * (a null value marks a free slot).
+ */
+public class IntHashMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    public IntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = slot(key);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) return (V) v;
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    // @return previous value for the key or null
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) throw new IllegalArgumentException("null values are not supported");
+
+        int i = slot(key);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        if (++size > (mask + 1) * 3 / 4) resize((mask + 1) << 1);
+        return null;
+    }
+
+    // @return removed value or null if there was no such key
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = slot(key);
+        Object v;
+        while ((v = values[i]) != null) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return (V) v;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object v : values) {
+            if (v != null) action.accept((V) v);
+        }
+    }
+
+    // Backward-shift deletion: keeps probe chains intact without tombstones.
+    private void shiftBack(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == null) break;
+
+            int home = slot(keys[i]);
+            // move the entry if its home slot is not between the hole and i (cyclically)
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == null) continue;
+            int i = slot(oldKeys[j]);
+            while (values[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,123 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int to non-negative int, without boxing.
+ * Same layout as IntHashMap: open addressing with linear probing.
+ * Values are stored shifted by one, so 0 marks a free slot.
+ */
+public class IntIntHashMap {
+
+    public static final int NO_VALUE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public IntIntHashMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != NO_VALUE;
+    }
+
+    // @return value or NO_VALUE
+    public int get(int key) {
+        int i = slot(key);
+        while (values[i] != 0) {
+            if (keys[i] == key) return values[i] - 1;
+            i = (i + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    // @return previous value or NO_VALUE
+    public int put(int key, int value) {
+        if (value < 0) throw new IllegalArgumentException("negative values are not supported");
+
+        int i = slot(key);
+        while (values[i] != 0) {
+            if (keys[i] == key) {
+                int old = values[i] - 1;
+                values[i] = value + 1;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value + 1;
+        if (++size > (mask + 1) * 3 / 4) resize((mask + 1) << 1);
+        return NO_VALUE;
+    }
+
+    // @return removed value or NO_VALUE
+    public int remove(int key) {
+        int i = slot(key);
+        while (values[i] != 0) {
+            if (keys[i] == key) {
+                int old = values[i] - 1;
+                shiftBack(i);
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private void shiftBack(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (values[i] == 0) break;
+
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        values[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == 0) continue;
+            int i = slot(oldKeys[j]);
+            while (values[i] != 0) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
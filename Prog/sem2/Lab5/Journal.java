@@ -0,0 +1,178 @@
+package manager;
+
+import model.HumanBeing;
+import util.StringDictionary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only log of collection changes.
+ * Each record is [int length][payload][int crc32]; the payload starts with the operation code.
+ * Writes are buffered, sync() makes them durable.
+ */
+public class Journal implements Closeable {
+
+    private static final byte ADD = 1;
+    private static final byte UPDATE = 2;
+    private static final byte REMOVE = 3;
+    private static final byte CLEAR = 4;
+
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    // Receives replayed changes. Adds and updates are both upserts, so replay is idempotent.
+    public interface Target {
+        void upsert(HumanBeing hb);
+
+        void remove(int id);
+
+        void clear();
+    }
+
+    private final Path path;
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final CRC32 crc = new CRC32();
+    private final DataOutputStream recordOut = new DataOutputStream(new CheckedOutputStream(record, crc));
+    private long size;
+
+    public Journal(Path path) throws IOException {
+        this.path = path;
+        this.file = new FileOutputStream(path.toFile(), true);
+        this.out = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024));
+        this.size = file.getChannel().size();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // Bytes in the journal, including records not synced yet.
+    public long size() {
+        return size;
+    }
+
+    public void add(HumanBeing hb) throws IOException {
+        recordOut.writeByte(ADD);
+        BinaryRecords.write(recordOut, hb);
+        endRecord();
+    }
+
+    public void update(HumanBeing hb) throws IOException {
+        recordOut.writeByte(UPDATE);
+        BinaryRecords.write(recordOut, hb);
+        endRecord();
+    }
+
+    public void remove(int id) throws IOException {
+        recordOut.writeByte(REMOVE);
+        recordOut.writeInt(id);
+        endRecord();
+    }
+
+    public void clear() throws IOException {
+        recordOut.writeByte(CLEAR);
+        endRecord();
+    }
+
+    public void sync() throws IOException {
+        out.flush();
+        file.getChannel().force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        out.close();
+    }
+
+    private void endRecord() throws IOException {
+        recordOut.flush();
+        out.writeInt(record.size());
+        record.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        size += 8 + record.size();
+
+        record.reset();
+        crc.reset();
+    }
+
+    /**
+     * Applies every complete record of the journal to the target.
+     * A torn or corrupted tail (crash while appending) is cut off so new records
+     * are not written after garbage.
+     * @return number of applied records
+     */
+    public static int replay(Path path, Target target, StringDictionary dictionary) throws IOException {
+        if (!Files.exists(path)) return 0;
+
+        int count = 0;
+        long valid = 0;
+        CRC32 check = new CRC32();
+
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(path), 64 * 1024);
+             DataInputStream in = new DataInputStream(is)) {
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) break;
+                    payload = new byte[length];
+                    in.readFully(payload);
+
+                    check.reset();
+                    check.update(payload);
+                    if (in.readInt() != (int) check.getValue()) break;
+                } catch (EOFException e) {
+                    break;
+                }
+
+                apply(payload, target, dictionary);
+                valid += 8 + payload.length;
+                count++;
+            }
+        }
+
+        if (valid < Files.size(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return count;
+    }
+
+    private static void apply(byte[] payload, Target target, StringDictionary dictionary) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        switch (op) {
+            case ADD:
+            case UPDATE:
+                target.upsert(BinaryRecords.read(in, dictionary));
+                break;
+            case REMOVE:
+                target.remove(in.readInt());
+                break;
+            case CLEAR:
+                target.clear();
+                break;
+            default:
+                throw new IOException("Unknown journal operation: " + op);
+        }
+    }
+}
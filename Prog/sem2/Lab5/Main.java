@@ -1,8 +1,11 @@
 import app.CommandRegistry;
 import command.impl.*;
 import manager.CollectionManager;
+import manager.ElementStore;
+import manager.SnapshotFormat;
 import util.InputManager;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 public class Main {
@@ -14,10 +17,28 @@ public class Main {
             return;
         }
 
+        // -Dstore=columnar keeps large collections in primitive columns
+        ElementStore store;
+        try {
+            store = ElementStore.create(System.getProperty("store", "indexed"));
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
         //  Create CollectionManager and load file
-        CollectionManager cm = new CollectionManager(args[0]);
+        CollectionManager cm = new CollectionManager(args[0], SnapshotFormat.forFile(args[0]), store);
         cm.loadFromFile();
 
+        // -Djournal=true: every change goes to <file>.journal, save only syncs it
+        if (Boolean.getBoolean("journal")) {
+            try {
+                cm.enableJournal(CollectionManager.DEFAULT_COMPACT_THRESHOLD);
+            } catch (IOException e) {
+                System.out.println("Error while opening journal: " + e.getMessage());
+            }
+        }
+
         // Create registry
         CommandRegistry registry = new CommandRegistry();
 
@@ -1,7 +1,7 @@
-package model;
-
-public enum Mood {
-    SORROW,
-    APATHY,
-    RAGE
-}
+package model;
+
+public enum Mood {
+    SORROW,
+    APATHY,
+    RAGE
+}
@@ -0,0 +1,112 @@
+package manager;
+
+import model.HumanBeing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * A parsed and compiled query (see QueryParser), immutable and safe to share between threads.
+ * Runs as: fetch candidates (one index lookup or the whole collection), filter, order, limit.
+ * With a limit only the best matches are kept, and candidates that already come in the requested order stop at the limit.
+ * Candidates are always checked against the whole condition, so the index only has to narrow them down.
+ * The filter loop checks a Cancellation, so a caller can give up on a long scan.
+ */
+public final class Query {
+
+    /** How the candidates are fetched. */
+    interface Access {
+        List<HumanBeing> fetch(ElementStore store);
+
+        // true if fetch returns the candidates in default order (impactSpeed, then id)
+        boolean inDefaultOrder();
+    }
+
+    private final String text;
+    private final Predicate<HumanBeing> condition;
+    private final Comparator<HumanBeing> order;
+    private final boolean defaultOrder; // order is impactSpeed ascending, then id
+    private final int limit; // -1 = no limit
+    private final Access access; // null = full scan
+    private final String plan;
+
+    Query(String text, Predicate<HumanBeing> condition, Comparator<HumanBeing> order, boolean defaultOrder,
+          int limit, Access access, String plan) {
+        this.text = text;
+        this.condition = condition;
+        this.order = order;
+        this.defaultOrder = defaultOrder;
+        this.limit = limit;
+        this.access = access;
+        this.plan = plan;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    // How the candidates are fetched, e.g. "index impactSpeed [10.0, 20.0)" or "scan".
+    public String getPlan() {
+        return plan;
+    }
+
+    boolean usesIndex() {
+        return access != null;
+    }
+
+    // Fetches the candidates from the store's indexes. Called under the manager's read lock.
+    List<HumanBeing> run(ElementStore store, Cancellation cancel) {
+        return select(access.fetch(store), access.inDefaultOrder(), cancel);
+    }
+
+    // Full scan over the given elements.
+    List<HumanBeing> scan(List<HumanBeing> elements, Cancellation cancel) {
+        return select(elements, false, cancel);
+    }
+
+    private List<HumanBeing> select(List<HumanBeing> candidates, boolean inDefaultOrder, Cancellation cancel) {
+        if (limit == 0) return List.of();
+        if (limit > 0 && !(inDefaultOrder && defaultOrder)) return top(candidates, cancel);
+
+        // all matches, or the first ones of candidates that are already in the requested order
+        List<HumanBeing> result = new ArrayList<>();
+        int scanned = 0;
+        for (HumanBeing hb : candidates) {
+            cancel.check(scanned++);
+            if (!condition.test(hb)) continue;
+            result.add(hb);
+            if (result.size() == limit) break;
+        }
+        if (!(inDefaultOrder && defaultOrder)) result.sort(order);
+        return Collections.unmodifiableList(result);
+    }
+
+    // The first `limit` matches in order, kept in a heap whose head is the worst of them: O(n log limit), not a full sort.
+    private List<HumanBeing> top(List<HumanBeing> candidates, Cancellation cancel) {
+        PriorityQueue<HumanBeing> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, order.reversed());
+        int scanned = 0;
+        for (HumanBeing hb : candidates) {
+            cancel.check(scanned++);
+            if (!condition.test(hb)) continue;
+            if (best.size() < limit) {
+                best.add(hb);
+            } else if (order.compare(hb, best.peek()) < 0) {
+                best.poll();
+                best.add(hb);
+            }
+        }
+
+        List<HumanBeing> result = new ArrayList<>(best);
+        result.sort(order);
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
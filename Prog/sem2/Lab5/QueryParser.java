@@ -0,0 +1,677 @@
+package manager;
+
+import model.HumanBeing;
+import model.Mood;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Parses the argument of the query command into a compiled Query.
+ * <pre>
+ * query     := [condition] [ORDER BY key {, key}] [LIMIT n]
+ * condition := term {OR term}
+ * term      := factor {AND factor}
+ * factor    := NOT factor | ( condition ) | field op value | field IS [NOT] NULL
+ * op        := = | != | &lt;&gt; | &lt; | &lt;= | &gt; | &gt;=
+ * key       := field [ASC | DESC]
+ * </pre>
+ * Fields: id, name, x, y, creationDate, realHero, hasToothpick, impactSpeed, soundtrackName,
+ * minutesOfWaiting, mood, car, car.name, car.cool.
+ * Values: numbers, 'text' or "text", true, false, null, mood names and dates as 'yyyy-mm-dd'.
+ * Keywords and field names are case-insensitive.
+ * NOT and parentheses nest at most MAX_DEPTH deep, and a query has at most MAX_CONDITIONS comparisons.
+ * A comparison with a missing value is false; "field = null" means "field IS NULL".
+ * Without ORDER BY the results are ordered by id.
+ * <p>
+ * The condition is turned into lambdas once, so running a query does no parsing, name lookups or reflection.
+ * Conditions on id, impactSpeed and minutesOfWaiting that are joined by AND at the top level
+ * choose the index the candidates are taken from.
+ * <p>
+ * Example: impactSpeed >= 10 and (mood = RAGE or car.cool = true) order by name desc limit 20
+ */
+public final class QueryParser {
+
+    private static final Comparator<HumanBeing> BY_ID = Comparator.comparingInt(HumanBeing::getId);
+    // the parser and the compiled condition recurse once per level
+    private static final int MAX_DEPTH = 64;
+    private static final int MAX_CONDITIONS = 1024;
+
+    private enum Kind { NUMBER, TEXT, BOOLEAN, DATE, MOOD, CAR }
+
+    private enum Field {
+        ID("id", Kind.NUMBER, false, HumanBeing::getId, hb -> hb.getId()),
+        NAME("name", Kind.TEXT, false, HumanBeing::getName),
+        X("x", Kind.NUMBER, false, hb -> hb.getCoordinates().getX(), hb -> hb.getCoordinates().getX()),
+        Y("y", Kind.NUMBER, false, hb -> hb.getCoordinates().getY(), hb -> hb.getCoordinates().getY()),
+        CREATION_DATE("creationDate", Kind.DATE, false, HumanBeing::getCreationDate),
+        REAL_HERO("realHero", Kind.BOOLEAN, false, HumanBeing::getRealHero),
+        HAS_TOOTHPICK("hasToothpick", Kind.BOOLEAN, true, HumanBeing::getHasToothpick),
+        IMPACT_SPEED("impactSpeed", Kind.NUMBER, false, HumanBeing::getImpactSpeed, HumanBeing::getImpactSpeed),
+        SOUNDTRACK_NAME("soundtrackName", Kind.TEXT, false, HumanBeing::getSoundtrackName),
+        MINUTES_OF_WAITING("minutesOfWaiting", Kind.NUMBER, true, HumanBeing::getMinutesOfWaiting, hb -> hb.getMinutesOfWaiting()),
+        MOOD("mood", Kind.MOOD, false, HumanBeing::getMood),
+        CAR("car", Kind.CAR, true, HumanBeing::getCar),
+        CAR_NAME("car.name", Kind.TEXT, true, hb -> hb.getCar() == null ? null : hb.getCar().getName()),
+        CAR_COOL("car.cool", Kind.BOOLEAN, true, hb -> hb.getCar() == null ? null : hb.getCar().getCool());
+
+        final String fieldName;
+        final Kind kind;
+        final boolean nullable;
+        final Function<HumanBeing, Object> value;
+        final ToDoubleFunction<HumanBeing> number; // NUMBER fields only, without boxing where the model allows
+
+        Field(String fieldName, Kind kind, boolean nullable, Function<HumanBeing, Object> value) {
+            this(fieldName, kind, nullable, value, null);
+        }
+
+        Field(String fieldName, Kind kind, boolean nullable, Function<HumanBeing, Object> value,
+              ToDoubleFunction<HumanBeing> number) {
+            this.fieldName = fieldName;
+            this.kind = kind;
+            this.nullable = nullable;
+            this.value = value;
+            this.number = number;
+        }
+    }
+
+    private static final Map<String, Field> FIELDS = new HashMap<>();
+
+    static {
+        for (Field field : Field.values()) {
+            FIELDS.put(field.fieldName.toLowerCase(Locale.ROOT), field);
+        }
+        FIELDS.put("coordinates.x", Field.X);
+        FIELDS.put("coordinates.y", Field.Y);
+    }
+
+    private enum Op {
+        EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+    }
+
+    // ---- syntax tree, compiled into predicates ----
+
+    private interface Node {
+        Predicate<HumanBeing> compile();
+    }
+
+    private static final class Comparison implements Node {
+        final Field field;
+        final Op op;
+        final Object value; // Double, String, Boolean, LocalDate or Mood, matching the field
+
+        Comparison(Field field, Op op, Object value) {
+            this.field = field;
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Predicate<HumanBeing> compile() {
+            Function<HumanBeing, Object> get = field.value;
+            Predicate<HumanBeing> test;
+            switch (field.kind) {
+                case NUMBER: {
+                    ToDoubleFunction<HumanBeing> number = field.number;
+                    double bound = (Double) value;
+                    test = compare(hb -> Double.compare(number.applyAsDouble(hb), bound), op);
+                    break;
+                }
+                case BOOLEAN: {
+                    Object bound = value;
+                    test = op == Op.EQ ? hb -> bound.equals(get.apply(hb)) : hb -> !bound.equals(get.apply(hb));
+                    break;
+                }
+                default: {
+                    Comparable bound = (Comparable) value;
+                    test = compare(hb -> ((Comparable) get.apply(hb)).compareTo(bound), op);
+                }
+            }
+            return field.nullable ? hb -> get.apply(hb) != null && test.test(hb) : test;
+        }
+
+        private static Predicate<HumanBeing> compare(ToIntFunction<HumanBeing> cmp, Op op) {
+            switch (op) {
+                case EQ: return hb -> cmp.applyAsInt(hb) == 0;
+                case NE: return hb -> cmp.applyAsInt(hb) != 0;
+                case LT: return hb -> cmp.applyAsInt(hb) < 0;
+                case LE: return hb -> cmp.applyAsInt(hb) <= 0;
+                case GT: return hb -> cmp.applyAsInt(hb) > 0;
+                default: return hb -> cmp.applyAsInt(hb) >= 0;
+            }
+        }
+    }
+
+    private static final class NullCheck implements Node {
+        final Field field;
+        final boolean isNull;
+
+        NullCheck(Field field, boolean isNull) {
+            this.field = field;
+            this.isNull = isNull;
+        }
+
+        @Override
+        public Predicate<HumanBeing> compile() {
+            Function<HumanBeing, Object> get = field.value;
+            return isNull ? hb -> get.apply(hb) == null : hb -> get.apply(hb) != null;
+        }
+    }
+
+    private static final class Logical implements Node {
+        final boolean and;
+        final List<Node> parts;
+
+        Logical(boolean and, List<Node> parts) {
+            this.and = and;
+            this.parts = parts;
+        }
+
+        // A flat loop: chaining Predicate.and/or would nest one call per part and overflow the stack on long chains.
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Predicate<HumanBeing> compile() {
+            Predicate<HumanBeing>[] compiled = new Predicate[parts.size()];
+            for (int i = 0; i < compiled.length; i++) compiled[i] = parts.get(i).compile();
+
+            if (and) {
+                return hb -> {
+                    for (Predicate<HumanBeing> part : compiled) {
+                        if (!part.test(hb)) return false;
+                    }
+                    return true;
+                };
+            }
+            return hb -> {
+                for (Predicate<HumanBeing> part : compiled) {
+                    if (part.test(hb)) return true;
+                }
+                return false;
+            };
+        }
+    }
+
+    private static final class Not implements Node {
+        final Node part;
+
+        Not(Node part) {
+            this.part = part;
+        }
+
+        @Override
+        public Predicate<HumanBeing> compile() {
+            return part.compile().negate();
+        }
+    }
+
+    // ---- tokens ----
+
+    private enum TokenType { WORD, NUMBER, TEXT, SYMBOL, END }
+
+    private static final class Token {
+        final TokenType type;
+        final String text;
+        final int position;
+
+        Token(TokenType type, String text, int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+
+        boolean is(String keyword) {
+            return type == TokenType.WORD && text.equalsIgnoreCase(keyword);
+        }
+
+        boolean isSymbol(String symbol) {
+            return type == TokenType.SYMBOL && text.equals(symbol);
+        }
+
+        @Override
+        public String toString() {
+            return type == TokenType.END ? "end of query" : "'" + text + "'";
+        }
+    }
+
+    private final String text;
+    private final List<Token> tokens;
+    private int pos;
+    private int depth; // of NOT and parentheses around the current factor
+    private int conditions; // comparisons and null checks so far
+
+    private QueryParser(String text) {
+        this.text = text;
+        this.tokens = tokenize(text);
+    }
+
+    /**
+     * Parses and compiles the query.
+     * @throws IllegalArgumentException with the position and the reason if the query is not valid
+     */
+    public static Query parse(String text) {
+        if (text == null) text = "";
+        return new QueryParser(text.trim()).query();
+    }
+
+    private Query query() {
+        Node condition = null;
+        if (!peek().is("order") && !peek().is("limit") && peek().type != TokenType.END) {
+            condition = condition();
+        }
+
+        Comparator<HumanBeing> order = null;
+        boolean defaultOrder = false;
+        if (peek().is("order")) {
+            next();
+            expectWord("by");
+            List<Field> keys = new ArrayList<>();
+            List<Boolean> descending = new ArrayList<>();
+            do {
+                Field field = field();
+                if (field.kind == Kind.CAR) throw error(tokens.get(pos - 1), "cannot order by car, use car.name or car.cool");
+                boolean desc = false;
+                if (peek().is("desc")) {
+                    next();
+                    desc = true;
+                } else if (peek().is("asc")) {
+                    next();
+                }
+                keys.add(field);
+                descending.add(desc);
+                Comparator<HumanBeing> key = desc ? orderBy(field).reversed() : orderBy(field);
+                order = order == null ? key : order.thenComparing(key);
+            } while (acceptSymbol(","));
+
+            // impactSpeed ascending, then id, is the order of the impactSpeed index
+            defaultOrder = keys.get(0) == Field.IMPACT_SPEED && !descending.get(0)
+                    && (keys.size() == 1 || keys.get(1) == Field.ID && !descending.get(1));
+        }
+        order = order == null ? BY_ID : order.thenComparing(BY_ID);
+
+        int limit = -1;
+        if (peek().is("limit")) {
+            next();
+            Token token = next();
+            if (token.type != TokenType.NUMBER) throw error(token, "LIMIT needs a number");
+            double value = Double.parseDouble(token.text);
+            if (value < 0 || value != Math.rint(value) || value > Integer.MAX_VALUE) {
+                throw error(token, "LIMIT needs a whole number >= 0");
+            }
+            limit = (int) value;
+        }
+
+        if (peek().type != TokenType.END) throw error(peek(), "unexpected " + peek());
+
+        Predicate<HumanBeing> predicate = condition == null ? hb -> true : condition.compile();
+        List<Node> conjuncts = new ArrayList<>();
+        if (condition instanceof Logical && ((Logical) condition).and) {
+            conjuncts.addAll(((Logical) condition).parts);
+        } else if (condition != null) {
+            conjuncts.add(condition);
+        }
+        return plan(conjuncts, predicate, order, defaultOrder, limit);
+    }
+
+    // ---- access path ----
+
+    private Query plan(List<Node> conjuncts, Predicate<HumanBeing> predicate, Comparator<HumanBeing> order,
+                       boolean defaultOrder, int limit) {
+        Integer id = null;
+        boolean minutesIndexed = false;
+        Integer minutes = null;
+        SpeedRange speed = new SpeedRange();
+
+        for (Node node : conjuncts) {
+            if (node instanceof Comparison) {
+                Comparison c = (Comparison) node;
+                double value = c.value instanceof Double ? (Double) c.value : Double.NaN;
+                if (c.field == Field.ID && c.op == Op.EQ && isInt(value)) {
+                    id = (int) value;
+                } else if (c.field == Field.MINUTES_OF_WAITING && c.op == Op.EQ && isInt(value)) {
+                    minutesIndexed = true;
+                    minutes = (int) value;
+                } else if (c.field == Field.IMPACT_SPEED) {
+                    speed.narrow(c.op, value);
+                }
+            } else if (node instanceof NullCheck) {
+                NullCheck check = (NullCheck) node;
+                if (check.field == Field.MINUTES_OF_WAITING && check.isNull) {
+                    minutesIndexed = true;
+                    minutes = null;
+                }
+            }
+        }
+
+        // id is unique; a closed speed range or one minutesOfWaiting value is usually small;
+        // an open speed range still beats a scan, and with ORDER BY impactSpeed it stops at the limit
+        Query.Access access;
+        String plan;
+        if (id != null) {
+            int key = id;
+            access = access(store -> {
+                HumanBeing hb = store.get(key);
+                return hb == null ? List.of() : List.of(hb);
+            }, true);
+            plan = "index id = " + key;
+        } else if (speed.isClosed() || !minutesIndexed && speed.isBounded()) {
+            access = access(speed::fetch, true);
+            plan = "index impactSpeed " + speed;
+        } else if (minutesIndexed) {
+            Integer key = minutes;
+            access = access(store -> store.findByMinutesOfWaiting(key), false);
+            plan = "index minutesOfWaiting " + (key == null ? "IS NULL" : "= " + key);
+        } else {
+            access = null;
+            plan = "scan";
+        }
+        return new Query(text, predicate, order, defaultOrder, limit, access, plan);
+    }
+
+    private static Query.Access access(Function<ElementStore, List<HumanBeing>> fetch, boolean inDefaultOrder) {
+        return new Query.Access() {
+            @Override
+            public List<HumanBeing> fetch(ElementStore store) {
+                return fetch.apply(store);
+            }
+
+            @Override
+            public boolean inDefaultOrder() {
+                return inDefaultOrder;
+            }
+        };
+    }
+
+    private static boolean isInt(double value) {
+        return value == Math.rint(value) && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    // impactSpeed bounds collected from the top-level conditions
+    private static final class SpeedRange {
+        double from = Double.NEGATIVE_INFINITY;
+        boolean fromInclusive = true;
+        double to = Double.POSITIVE_INFINITY;
+        boolean toInclusive = true;
+
+        void narrow(Op op, double value) {
+            switch (op) {
+                case EQ:
+                    narrowFrom(value, true);
+                    narrowTo(value, true);
+                    break;
+                case GT: narrowFrom(value, false); break;
+                case GE: narrowFrom(value, true); break;
+                case LT: narrowTo(value, false); break;
+                case LE: narrowTo(value, true); break;
+                default: // != does not narrow anything
+            }
+        }
+
+        private void narrowFrom(double value, boolean inclusive) {
+            int cmp = Double.compare(value, from);
+            if (cmp > 0 || cmp == 0 && !inclusive) {
+                from = value;
+                fromInclusive = inclusive;
+            }
+        }
+
+        private void narrowTo(double value, boolean inclusive) {
+            int cmp = Double.compare(value, to);
+            if (cmp < 0 || cmp == 0 && !inclusive) {
+                to = value;
+                toInclusive = inclusive;
+            }
+        }
+
+        boolean isBounded() {
+            return from != Double.NEGATIVE_INFINITY || to != Double.POSITIVE_INFINITY;
+        }
+
+        boolean isClosed() {
+            return from != Double.NEGATIVE_INFINITY && to != Double.POSITIVE_INFINITY;
+        }
+
+        List<HumanBeing> fetch(ElementStore store) {
+            return store.rangeByImpactSpeed(from, fromInclusive, to, toInclusive);
+        }
+
+        @Override
+        public String toString() {
+            return (fromInclusive ? "[" : "(") + from + ", " + to + (toInclusive ? "]" : ")");
+        }
+    }
+
+    // ---- grammar ----
+
+    private Node condition() {
+        List<Node> parts = new ArrayList<>();
+        parts.add(term());
+        while (peek().is("or")) {
+            next();
+            parts.add(term());
+        }
+        return parts.size() == 1 ? parts.get(0) : new Logical(false, parts);
+    }
+
+    private Node term() {
+        List<Node> parts = new ArrayList<>();
+        parts.add(factor());
+        while (peek().is("and")) {
+            next();
+            parts.add(factor());
+        }
+        return parts.size() == 1 ? parts.get(0) : new Logical(true, parts);
+    }
+
+    private Node factor() {
+        if (peek().is("not")) {
+            enter(next());
+            Node inner = factor();
+            depth--;
+            return new Not(inner);
+        }
+        if (peek().isSymbol("(")) {
+            enter(next());
+            Node inner = condition();
+            if (!acceptSymbol(")")) throw error(peek(), "expected ')' but found " + peek());
+            depth--;
+            return inner;
+        }
+
+        if (++conditions > MAX_CONDITIONS) throw error(peek(), "more than " + MAX_CONDITIONS + " conditions");
+        Field field = field();
+        if (peek().is("is")) {
+            next();
+            boolean negated = false;
+            if (peek().is("not")) {
+                next();
+                negated = true;
+            }
+            expectWord("null");
+            return new NullCheck(field, !negated);
+        }
+
+        Token opToken = next();
+        Op op = operator(opToken);
+        Token valueToken = next();
+        if (valueToken.is("null")) {
+            if (op != Op.EQ && op != Op.NE) throw error(valueToken, "null can only be compared with = or !=");
+            return new NullCheck(field, op == Op.EQ);
+        }
+        if (field.kind == Kind.CAR) throw error(valueToken, "car can only be compared with null, use car.name or car.cool");
+        if (field.kind == Kind.BOOLEAN && op != Op.EQ && op != Op.NE) {
+            throw error(opToken, field.fieldName + " can only be compared with = or !=");
+        }
+        return new Comparison(field, op, value(field, valueToken));
+    }
+
+    private void enter(Token token) {
+        if (++depth > MAX_DEPTH) throw error(token, "NOT and parentheses are nested more than " + MAX_DEPTH + " deep");
+    }
+
+    private Field field() {
+        Token token = next();
+        Field field = token.type == TokenType.WORD ? FIELDS.get(token.text.toLowerCase(Locale.ROOT)) : null;
+        if (field == null) throw error(token, "unknown field " + token);
+        return field;
+    }
+
+    private Op operator(Token token) {
+        if (token.type == TokenType.SYMBOL) {
+            if (token.text.equals("<>")) return Op.NE;
+            for (Op op : Op.values()) {
+                if (op.symbol.equals(token.text)) return op;
+            }
+        }
+        throw error(token, "expected a comparison (= != < <= > >=) or IS but found " + token);
+    }
+
+    private Object value(Field field, Token token) {
+        switch (field.kind) {
+            case NUMBER:
+                if (token.type != TokenType.NUMBER) throw error(token, field.fieldName + " needs a number, not " + token);
+                return Double.parseDouble(token.text);
+            case TEXT:
+                if (token.type != TokenType.TEXT) throw error(token, field.fieldName + " needs a quoted text, not " + token);
+                return token.text;
+            case BOOLEAN:
+                if (token.is("true")) return Boolean.TRUE;
+                if (token.is("false")) return Boolean.FALSE;
+                throw error(token, field.fieldName + " needs true or false, not " + token);
+            case DATE:
+                try {
+                    if (token.type == TokenType.TEXT) return LocalDate.parse(token.text);
+                } catch (DateTimeParseException e) {
+                    // reported below
+                }
+                throw error(token, field.fieldName + " needs a date as 'yyyy-mm-dd', not " + token);
+            default:
+                if (token.type == TokenType.WORD || token.type == TokenType.TEXT) {
+                    for (Mood mood : Mood.values()) {
+                        if (mood.name().equalsIgnoreCase(token.text)) return mood;
+                    }
+                }
+                throw error(token, "mood must be one of " + Arrays.toString(Mood.values()) + ", not " + token);
+        }
+    }
+
+    private void expectWord(String keyword) {
+        Token token = next();
+        if (!token.is(keyword)) throw error(token, "expected " + keyword.toUpperCase(Locale.ROOT) + " but found " + token);
+    }
+
+    private boolean acceptSymbol(String symbol) {
+        if (!peek().isSymbol(symbol)) return false;
+        next();
+        return true;
+    }
+
+    private Token peek() {
+        return tokens.get(pos);
+    }
+
+    private Token next() {
+        Token token = tokens.get(pos);
+        if (token.type != TokenType.END) pos++;
+        return token;
+    }
+
+    private static IllegalArgumentException error(Token token, String message) {
+        return error(token.position, message);
+    }
+
+    private static IllegalArgumentException error(int position, String message) {
+        return new IllegalArgumentException("Query error at position " + (position + 1) + ": " + message);
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < text.length() && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_' || text.charAt(i) == '.')) i++;
+                tokens.add(new Token(TokenType.WORD, text.substring(start, i), start));
+            } else if (Character.isDigit(c) || (c == '-' || c == '+' || c == '.') && startsNumber(text, i)) {
+                i++;
+                while (i < text.length()) {
+                    char d = text.charAt(i);
+                    boolean exponentSign = (d == '-' || d == '+') && (text.charAt(i - 1) == 'e' || text.charAt(i - 1) == 'E');
+                    if (!Character.isDigit(d) && d != '.' && d != 'e' && d != 'E' && !exponentSign) break;
+                    i++;
+                }
+                String number = text.substring(start, i);
+                try {
+                    Double.parseDouble(number);
+                } catch (NumberFormatException e) {
+                    throw error(start, "bad number '" + number + "'");
+                }
+                tokens.add(new Token(TokenType.NUMBER, number, start));
+            } else if (c == '\'' || c == '"') {
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= text.length()) throw error(start, "text is not closed with " + c);
+                    char d = text.charAt(i++);
+                    if (d == c) {
+                        // a doubled quote stands for the quote itself
+                        if (i < text.length() && text.charAt(i) == c) {
+                            value.append(c);
+                            i++;
+                            continue;
+                        }
+                        break;
+                    }
+                    value.append(d);
+                }
+                tokens.add(new Token(TokenType.TEXT, value.toString(), start));
+            } else if (text.startsWith("<=", i) || text.startsWith(">=", i) || text.startsWith("!=", i) || text.startsWith("<>", i)) {
+                i += 2;
+                tokens.add(new Token(TokenType.SYMBOL, text.substring(start, i), start));
+            } else if ("=<>(),".indexOf(c) >= 0) {
+                i++;
+                tokens.add(new Token(TokenType.SYMBOL, String.valueOf(c), start));
+            } else {
+                throw error(start, "unexpected character '" + c + "'");
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", text.length()));
+        return tokens;
+    }
+
+    // -5, +.5 or .5
+    private static boolean startsNumber(String text, int i) {
+        int j = i + 1;
+        if (text.charAt(i) != '.' && j < text.length() && text.charAt(j) == '.') j++;
+        return j < text.length() && Character.isDigit(text.charAt(j));
+    }
+
+    // Comparator of one ORDER BY key; missing values come first.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<HumanBeing> orderBy(Field field) {
+        if (field.kind == Kind.NUMBER && !field.nullable) return Comparator.comparingDouble(field.number);
+        Function<HumanBeing, Object> get = field.value;
+        Comparator natural = Comparator.nullsFirst(Comparator.naturalOrder());
+        return (a, b) -> natural.compare(get.apply(a), get.apply(b));
+    }
+}
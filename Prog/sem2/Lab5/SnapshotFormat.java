@@ -0,0 +1,73 @@
+package manager;
+
+import model.HumanBeing;
+import util.StringDictionary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * File formats the collection can be stored in.
+ */
+public enum SnapshotFormat {
+    CSV,
+    BINARY;
+
+    // "*.bin" files are binary snapshots, everything else is CSV
+    public static SnapshotFormat forFile(String fileName) {
+        return fileName.toLowerCase().endsWith(".bin") ? BINARY : CSV;
+    }
+
+    public CsvLoader.Result read(Path path) throws IOException {
+        return read(path, new StringDictionary());
+    }
+
+    // Repeated strings of the loaded elements are shared through the dictionary.
+    public CsvLoader.Result read(Path path, StringDictionary dictionary) throws IOException {
+        if (this == BINARY) {
+            return new CsvLoader.Result(BinarySnapshot.read(path, dictionary), null);
+        }
+        return new CsvLoader(dictionary).load(path);
+    }
+
+    public void write(Path path, Collection<HumanBeing> elements) throws IOException {
+        write(path, elements, new CsvWriter());
+    }
+
+    // CSV goes through the given writer, so repeated saves reuse its encode buffer.
+    public void write(Path path, Collection<HumanBeing> elements, CsvWriter csvWriter) throws IOException {
+        if (this == BINARY) {
+            BinarySnapshot.write(path, elements);
+        } else {
+            csvWriter.write(path, elements);
+        }
+    }
+
+    /**
+     * Converts a collection file between formats (chosen by extension).
+     * Usage: SnapshotFormat <from> <to>
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: SnapshotFormat <from file> <to file> (*.bin = binary, otherwise CSV)");
+            return;
+        }
+
+        try {
+            CsvLoader.Result result = forFile(args[0]).read(Path.of(args[0]));
+            if (result.getError() != null) {
+                System.out.println("Error while reading " + args[0] + ": " + result.getError().getMessage());
+                return;
+            }
+
+            List<HumanBeing> elements = result.getElements();
+            forFile(args[1]).write(Path.of(args[1]), elements);
+            System.out.println("Converted elements: " + elements.size());
+
+        } catch (IOException e) {
+            System.out.println("Error while converting: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of repeated string values (soundtrack names, car names).
+ * Every distinct value is stored once and gets a stable ordinal,
+ * so equal values can be shared by reference or kept as an int.
+ * Thread-safe; values are never removed.
+ */
+public class StringDictionary {
+
+    private final ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[64];
+    private int size; // guarded by this
+
+    // @return the canonical instance equal to value (null stays null)
+    public String intern(String value) {
+        if (value == null) return null;
+        return get(ordinal(value));
+    }
+
+    // @return ordinal of the value, adding it if it is new
+    public int ordinal(String value) {
+        Integer ordinal = ordinals.get(value);
+        if (ordinal != null) return ordinal;
+
+        synchronized (this) {
+            ordinal = ordinals.get(value);
+            if (ordinal != null) return ordinal;
+
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size] = value;
+            ordinals.put(value, size); // published after the array slot is written
+            return size++;
+        }
+    }
+
+    public String get(int ordinal) {
+        return values[ordinal];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
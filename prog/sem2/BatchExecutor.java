@@ -0,0 +1,40 @@
+package server;
+
+import common.network.Request;
+import common.network.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs the commands of a batch request one after another, in order.
+ * A failing command gets an error result and does not stop the rest of the batch,
+ * the same as a script line whose request failed.
+ */
+public final class BatchExecutor {
+
+    private BatchExecutor() {
+    }
+
+    public static Response execute(Request batch, Function<Request, Response> handler) {
+        List<Response> results = new ArrayList<>(batch.getBatch().size());
+        for (Request command : batch.getBatch()) {
+            Response result;
+            if (command.getBatch() != null) {
+                result = new Response("Nested batches are not supported", null);
+            } else {
+                try {
+                    result = handler.apply(command);
+                } catch (RuntimeException e) {
+                    result = new Response("Error: " + e.getMessage(), null);
+                }
+            }
+            results.add(result);
+        }
+
+        Response response = new Response(results);
+        response.setCorrelationId(batch.getCorrelationId());
+        return response;
+    }
+}
@@ -0,0 +1,506 @@
+package common.network;
+
+import common.model.Car;
+import common.model.Coordinates;
+import common.model.Field;
+import common.model.HumanBeing;
+import common.model.Mood;
+import common.model.Row;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written binary wire format, written straight into a ByteBuffer.
+ *
+ * Message: [byte MAGIC][byte VERSION][byte kind][int correlationId] + body.
+ * Counts and lengths are varints. Strings go through a per-message table:
+ * tag 0 = null, 1 = new string (varint length + UTF-8 bytes), n >= 2 = repeat of table entry n - 2,
+ * so a repeated soundtrackName or car name costs one or two bytes.
+ * Request body: commandName, commandStringArgument, [HumanBeing], pageSize, [long cursor], fields,
+ * batch (count + 1, 0 = none, then request bodies).
+ * Response body: message, byte flags, [long cursor], [long version], [removedIds (count + ints)],
+ * [rows (count + rows)], collection (count + 1, 0 = null), results (count + 1, 0 = none, then response bodies);
+ * the bracketed fields are there only if their flag is set.
+ * [long cursor] in a request is a byte 0 (no cursor) or 1 followed by the cursor.
+ * HumanBeing: id, flags (booleans and nulls), x, y, epoch day, impactSpeed, mood ordinal,
+ * [minutesOfWaiting], name, soundtrackName, [car name].
+ * Row: field mask, then only those fields in Field order; nullable booleans are a byte 0 = null, 1 = false, 2 = true,
+ * minutesOfWaiting is a byte 0/1 + int, car a byte 0 = null or 1 + the cool byte, then the name.
+ *
+ * Stateless, one instance can be shared by several threads.
+ */
+public class BinaryCodec implements MessageCodec {
+
+    public static final byte MAGIC = (byte) 0xB1;
+    public static final byte VERSION = 6;
+
+    private static final byte REQUEST = 1;
+    private static final byte RESPONSE = 2;
+
+    private static final int REAL_HERO = 1;
+    private static final int HAS_TOOTHPICK_SET = 1 << 1;
+    private static final int HAS_TOOTHPICK = 1 << 2;
+    private static final int MINUTES_SET = 1 << 3;
+    private static final int CAR_SET = 1 << 4;
+    private static final int CAR_COOL_SET = 1 << 5;
+    private static final int CAR_COOL = 1 << 6;
+
+    private static final int HAS_CURSOR = 1;
+    private static final int HAS_VERSION = 1 << 1;
+    private static final int HAS_REMOVED_IDS = 1 << 2;
+    private static final int FULL_SYNC = 1 << 3;
+    private static final int HAS_ROWS = 1 << 4;
+
+    private static final Mood[] MOODS = Mood.values();
+    // batches hold plain commands; anything deeper is not from our encoder
+    private static final int MAX_NESTING = 4;
+
+    // Java serialization streams start with 0xACED, so the first byte tells the formats apart.
+    public static boolean isBinary(ByteBuffer buffer) {
+        return buffer.remaining() > 0 && buffer.get(buffer.position()) == MAGIC;
+    }
+
+    @Override
+    public void encode(Object message, ByteBuffer buffer) {
+        Writer out = new Writer(buffer);
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+
+        if (message instanceof Request) {
+            Request request = (Request) message;
+            buffer.put(REQUEST);
+            buffer.putInt(request.getCorrelationId());
+            out.request(request);
+        } else if (message instanceof Response) {
+            Response response = (Response) message;
+            buffer.put(RESPONSE);
+            buffer.putInt(response.getCorrelationId());
+            out.response(response);
+        } else {
+            throw new IllegalArgumentException("Cannot encode " + message);
+        }
+    }
+
+    @Override
+    public Object decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.get() != MAGIC) throw new IOException("Not a binary message");
+            byte version = buffer.get();
+            if (version != VERSION) throw new IOException("Unsupported message version: " + version);
+
+            Reader in = new Reader(buffer);
+            byte kind = buffer.get();
+            int correlationId = buffer.getInt();
+            switch (kind) {
+                case REQUEST:
+                    Request request = in.request();
+                    request.setCorrelationId(correlationId);
+                    return request;
+                case RESPONSE:
+                    Response response = in.response();
+                    response.setCorrelationId(correlationId);
+                    return response;
+                default:
+                    throw new IOException("Unknown message kind: " + kind);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated message", e);
+        } catch (RuntimeException e) {
+            // e.g. an epoch day out of range or an element that fails validation: still just a bad message
+            throw new IOException("Malformed message: " + e.getMessage(), e);
+        }
+    }
+
+    private static class Writer {
+        private final ByteBuffer buf;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Writer(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        void request(Request request) {
+            string(request.getCommandName());
+            string(request.getCommandStringArgument());
+            humanBeingOrNull(request.getObjectArgument());
+            varint(request.getPageSize());
+            cursor(request.getCursor());
+            varint(request.getFields());
+
+            List<Request> batch = request.getBatch();
+            varint(batch == null ? 0 : batch.size() + 1);
+            if (batch != null) {
+                for (Request command : batch) request(command);
+            }
+        }
+
+        void response(Response response) {
+            string(response.getMessage());
+
+            int[] removedIds = response.getRemovedIds();
+            int flags = 0;
+            if (response.getCursor() != 0) flags |= HAS_CURSOR;
+            if (response.getVersion() != 0) flags |= HAS_VERSION;
+            if (removedIds != null) flags |= HAS_REMOVED_IDS;
+            if (response.isFullSync()) flags |= FULL_SYNC;
+            if (response.getRows() != null) flags |= HAS_ROWS;
+            buf.put((byte) flags);
+            if (response.getCursor() != 0) buf.putLong(response.getCursor());
+            if (response.getVersion() != 0) buf.putLong(response.getVersion());
+            if (removedIds != null) {
+                varint(removedIds.length);
+                for (int id : removedIds) buf.putInt(id);
+            }
+            if (response.getRows() != null) {
+                varint(response.getRows().size());
+                for (Row row : response.getRows()) row(row);
+            }
+
+            humanBeings(response.getCollection());
+
+            List<Response> results = response.getResults();
+            varint(results == null ? 0 : results.size() + 1);
+            if (results != null) {
+                for (Response result : results) response(result);
+            }
+        }
+
+        void cursor(long cursor) {
+            buf.put((byte) (cursor == 0 ? 0 : 1));
+            if (cursor != 0) buf.putLong(cursor);
+        }
+
+        void humanBeings(List<HumanBeing> list) {
+            if (list == null) {
+                varint(0);
+                return;
+            }
+            varint(list.size() + 1); // 0 = null list
+            for (HumanBeing hb : list) humanBeing(hb);
+        }
+
+        void humanBeingOrNull(HumanBeing hb) {
+            buf.put((byte) (hb == null ? 0 : 1));
+            if (hb != null) humanBeing(hb);
+        }
+
+        void humanBeing(HumanBeing hb) {
+            Car car = hb.getCar();
+
+            int flags = 0;
+            if (hb.getRealHero()) flags |= REAL_HERO;
+            if (hb.getHasToothpick() != null) {
+                flags |= HAS_TOOTHPICK_SET;
+                if (hb.getHasToothpick()) flags |= HAS_TOOTHPICK;
+            }
+            if (hb.getMinutesOfWaiting() != null) flags |= MINUTES_SET;
+            if (car != null) {
+                flags |= CAR_SET;
+                if (car.getCool() != null) {
+                    flags |= CAR_COOL_SET;
+                    if (car.getCool()) flags |= CAR_COOL;
+                }
+            }
+
+            buf.putInt(hb.getId());
+            buf.put((byte) flags);
+            buf.putInt(hb.getCoordinates().getX());
+            buf.putInt(hb.getCoordinates().getY());
+            buf.putLong(hb.getCreationDate().toEpochDay());
+            buf.putDouble(hb.getImpactSpeed());
+            buf.put((byte) hb.getMood().ordinal());
+            if (hb.getMinutesOfWaiting() != null) buf.putInt(hb.getMinutesOfWaiting());
+            string(hb.getName());
+            string(hb.getSoundtrackName());
+            if (car != null) string(car.getName());
+        }
+
+        void row(Row row) {
+            int fields = row.getFields();
+            varint(fields);
+            if (Field.ID.in(fields)) buf.putInt(row.getId());
+            if (Field.NAME.in(fields)) string(row.getName());
+            if (Field.COORDINATES.in(fields)) {
+                buf.putInt(row.getCoordinates().getX());
+                buf.putInt(row.getCoordinates().getY());
+            }
+            if (Field.CREATION_DATE.in(fields)) buf.putLong(row.getCreationDate().toEpochDay());
+            if (Field.REAL_HERO.in(fields)) bool(row.getRealHero());
+            if (Field.HAS_TOOTHPICK.in(fields)) bool(row.getHasToothpick());
+            if (Field.IMPACT_SPEED.in(fields)) buf.putDouble(row.getImpactSpeed());
+            if (Field.SOUNDTRACK_NAME.in(fields)) string(row.getSoundtrackName());
+            if (Field.MINUTES_OF_WAITING.in(fields)) {
+                buf.put((byte) (row.getMinutesOfWaiting() == null ? 0 : 1));
+                if (row.getMinutesOfWaiting() != null) buf.putInt(row.getMinutesOfWaiting());
+            }
+            if (Field.MOOD.in(fields)) buf.put((byte) row.getMood().ordinal());
+            if (Field.CAR.in(fields)) {
+                Car car = row.getCar();
+                buf.put((byte) (car == null ? 0 : 1));
+                if (car != null) {
+                    bool(car.getCool());
+                    string(car.getName());
+                }
+            }
+        }
+
+        void bool(Boolean value) {
+            buf.put((byte) (value == null ? 0 : value ? 2 : 1));
+        }
+
+        void string(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+
+            Integer index = strings.get(s);
+            if (index != null) {
+                varint(index + 2);
+                return;
+            }
+            strings.put(s, strings.size());
+            varint(1);
+
+            int length = s.length();
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) ascii = s.charAt(i) < 0x80;
+
+            if (ascii) {
+                varint(length);
+                for (int i = 0; i < length; i++) buf.put((byte) s.charAt(i));
+            } else {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                varint(bytes.length);
+                buf.put(bytes);
+            }
+        }
+
+        void varint(int value) {
+            while ((value & ~0x7F) != 0) {
+                buf.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buf.put((byte) value);
+        }
+    }
+
+    private static class Reader {
+        private final ByteBuffer buf;
+        private final List<String> strings = new ArrayList<>();
+        private int depth; // of nested batches
+
+        Reader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        Request request() throws IOException {
+            String commandName = string();
+            String commandStringArgument = string();
+            HumanBeing objectArgument = humanBeingOrNull();
+            int pageSize = varint();
+            long cursor = cursor();
+            int fields = varint();
+
+            Request request;
+            int count = count();
+            if (count < 0) {
+                request = new Request(commandName, commandStringArgument, objectArgument);
+            } else {
+                enter();
+                List<Request> batch = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) batch.add(request());
+                request = new Request(batch);
+                depth--;
+            }
+            request.setPageSize(pageSize);
+            request.setCursor(cursor);
+            request.setFields(fields);
+            return request;
+        }
+
+        Response response() throws IOException {
+            String message = string();
+
+            int flags = buf.get() & 0xFF;
+            long cursor = (flags & HAS_CURSOR) != 0 ? buf.getLong() : 0;
+            long version = (flags & HAS_VERSION) != 0 ? buf.getLong() : 0;
+            int[] removedIds = null;
+            if ((flags & HAS_REMOVED_IDS) != 0) {
+                int count = size(buf.remaining() / Integer.BYTES, "id count");
+                removedIds = new int[count];
+                for (int i = 0; i < count; i++) removedIds[i] = buf.getInt();
+            }
+            List<Row> rows = null;
+            if ((flags & HAS_ROWS) != 0) {
+                int count = size(buf.remaining(), "row count");
+                rows = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) rows.add(row());
+            }
+
+            List<HumanBeing> collection = humanBeings();
+
+            Response response;
+            int count = count();
+            if (count < 0) {
+                response = new Response(message, collection);
+            } else {
+                enter();
+                List<Response> results = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) results.add(response());
+                response = new Response(results);
+                depth--;
+            }
+            response.setCursor(cursor);
+            response.setVersion(version);
+            response.setRemovedIds(removedIds);
+            response.setFullSync((flags & FULL_SYNC) != 0);
+            response.setRows(rows);
+            return response;
+        }
+
+        long cursor() {
+            return buf.get() == 0 ? 0 : buf.getLong();
+        }
+
+        // count + 1 written by the encoder; @return -1 for none
+        int count() throws IOException {
+            int count = varint() - 1;
+            if (count < -1 || count > buf.remaining()) throw new IOException("Bad element count: " + count);
+            return count;
+        }
+
+        // A count or length that has to fit in what is left of the message (every item takes a byte at least).
+        int size(int max, String what) throws IOException {
+            int size = varint();
+            if (size < 0 || size > max) throw new IOException("Bad " + what + ": " + size);
+            return size;
+        }
+
+        void enter() throws IOException {
+            if (++depth > MAX_NESTING) throw new IOException("Batches nested too deeply");
+        }
+
+        List<HumanBeing> humanBeings() throws IOException {
+            int count = count();
+            if (count < 0) return null;
+
+            List<HumanBeing> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) list.add(humanBeing());
+            return list;
+        }
+
+        HumanBeing humanBeingOrNull() throws IOException {
+            return buf.get() == 0 ? null : humanBeing();
+        }
+
+        HumanBeing humanBeing() throws IOException {
+            int id = buf.getInt();
+            int flags = buf.get() & 0xFF;
+            int x = buf.getInt();
+            int y = buf.getInt();
+            long epochDay = buf.getLong();
+            double impactSpeed = buf.getDouble();
+            int mood = buf.get() & 0xFF;
+            Integer minutesOfWaiting = (flags & MINUTES_SET) != 0 ? buf.getInt() : null;
+            String name = string();
+            String soundtrackName = string();
+
+            Car car = null;
+            if ((flags & CAR_SET) != 0) {
+                Boolean cool = (flags & CAR_COOL_SET) != 0 ? (flags & CAR_COOL) != 0 : null;
+                car = new Car(string(), cool);
+            }
+
+            if (mood >= MOODS.length) throw new IOException("Unknown mood ordinal: " + mood);
+
+            return new HumanBeing(
+                    id,
+                    name,
+                    new Coordinates(x, y),
+                    LocalDate.ofEpochDay(epochDay),
+                    (flags & REAL_HERO) != 0,
+                    (flags & HAS_TOOTHPICK_SET) != 0 ? (flags & HAS_TOOTHPICK) != 0 : null,
+                    impactSpeed,
+                    soundtrackName,
+                    minutesOfWaiting,
+                    MOODS[mood],
+                    car
+            );
+        }
+
+        Row row() throws IOException {
+            int fields = varint();
+            Integer id = Field.ID.in(fields) ? buf.getInt() : null;
+            String name = Field.NAME.in(fields) ? string() : null;
+            Coordinates coordinates = Field.COORDINATES.in(fields) ? new Coordinates(buf.getInt(), buf.getInt()) : null;
+            LocalDate creationDate = Field.CREATION_DATE.in(fields) ? LocalDate.ofEpochDay(buf.getLong()) : null;
+            Boolean realHero = Field.REAL_HERO.in(fields) ? bool() : null;
+            Boolean hasToothpick = Field.HAS_TOOTHPICK.in(fields) ? bool() : null;
+            Double impactSpeed = Field.IMPACT_SPEED.in(fields) ? buf.getDouble() : null;
+            String soundtrackName = Field.SOUNDTRACK_NAME.in(fields) ? string() : null;
+            Integer minutesOfWaiting = Field.MINUTES_OF_WAITING.in(fields) && buf.get() != 0 ? buf.getInt() : null;
+
+            Mood mood = null;
+            if (Field.MOOD.in(fields)) {
+                int ordinal = buf.get() & 0xFF;
+                if (ordinal >= MOODS.length) throw new IOException("Unknown mood ordinal: " + ordinal);
+                mood = MOODS[ordinal];
+            }
+
+            Car car = null;
+            if (Field.CAR.in(fields) && buf.get() != 0) {
+                Boolean cool = bool();
+                car = new Car(string(), cool);
+            }
+
+            return new Row(fields, id, name, coordinates, creationDate, realHero, hasToothpick,
+                    impactSpeed, soundtrackName, minutesOfWaiting, mood, car);
+        }
+
+        Boolean bool() {
+            byte value = buf.get();
+            return value == 0 ? null : value == 2;
+        }
+
+        String string() throws IOException {
+            int tag = varint();
+            if (tag == 0) return null;
+            if (tag >= 2) {
+                if (tag - 2 >= strings.size()) throw new IOException("Bad string reference: " + tag);
+                return strings.get(tag - 2);
+            }
+
+            int length = size(buf.remaining(), "string length");
+            String s;
+            if (buf.hasArray()) {
+                s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+                buf.position(buf.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                buf.get(bytes);
+                s = new String(bytes, StandardCharsets.UTF_8);
+            }
+            strings.add(s);
+            return s;
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = buf.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IOException("Malformed varint");
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package common.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of equally sized direct buffers for datagram I/O.
+ * Direct buffers are expensive to allocate but let the channel send and receive without an extra copy,
+ * so they are allocated once and reused. Thread-safe.
+ */
+public class BufferPool {
+
+    public static final int MAX_DATAGRAM_SIZE = 65535;
+
+    private final int bufferSize;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+
+    public BufferPool(int maxPooled) {
+        this(maxPooled, MAX_DATAGRAM_SIZE);
+    }
+
+    public BufferPool(int maxPooled, int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.free = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    // @return a cleared buffer; a new one is allocated if the pool is empty
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) return ByteBuffer.allocateDirect(bufferSize);
+        buffer.clear();
+        return buffer;
+    }
+
+    // Returns the buffer to the pool; it is dropped if the pool is already full.
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferSize) free.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -1,33 +1,33 @@
-package common.model;
-
-import common.exception.ValidationException;
-
-import java.io.Serializable;
-
-public class Car implements Serializable {
-    private static final long serialVersionUID = 1L;
-
-    private final String name;   // cannot be null
-    private final Boolean cool;  // can be null
-
-    public Car(String name, Boolean cool) {
-        if (name == null) {
-            throw new ValidationException("Car.name cannot be null");
-        }
-        this.name = name;
-        this.cool = cool;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public Boolean getCool() {
-        return cool;
-    }
-
-    @Override
-    public String toString() {
-        return "Car{name='" + name + "', cool=" + cool + "}";
-    }
-}
+package common.model;
+
+import common.exception.ValidationException;
+
+import java.io.Serializable;
+
+public class Car implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;   // cannot be null
+    private final Boolean cool;  // can be null
+
+    public Car(String name, Boolean cool) {
+        if (name == null) {
+            throw new ValidationException("Car.name cannot be null");
+        }
+        this.name = name;
+        this.cool = cool;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Boolean getCool() {
+        return cool;
+    }
+
+    @Override
+    public String toString() {
+        return "Car{name='" + name + "', cool=" + cool + "}";
+    }
+}
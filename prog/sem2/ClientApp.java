@@ -1,164 +1,389 @@
-package client;
-
-import common.model.Car;
-import common.model.Coordinates;
-import common.model.HumanBeing;
-import common.model.Mood;
-import common.network.Request;
-import common.network.Response;
-import util.InputManager;
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.HashSet;
-import java.util.Scanner;
-import java.util.Set;
-
-public class ClientApp {
-    private final UDPClient client;
-    private final InputManager inputManager;
-    private final Set<String> activeScripts; // Prevents infinite script recursion
-
-    public ClientApp(UDPClient client) {
-        this.client = client;
-        this.inputManager = new InputManager(new Scanner(System.in));
-        this.activeScripts = new HashSet<>();
-    }
-
-    public void start() {
-        System.out.println("Interactive mode started. Type 'help'.");
-
-        while (true) {
-            System.out.print("> ");
-            if (!inputManager.getScanner().hasNextLine()) break; // End of input (Ctrl+D)
-            String inputLine = inputManager.getScanner().nextLine().trim();
-            processCommand(inputLine);
-        }
-    }
-
-    private void processCommand(String inputLine) {
-        if (inputLine.isEmpty()) return;
-
-        String[] parts = inputLine.split(" ", 2);
-        String commandName = parts[0].toLowerCase();
-        String commandArg = parts.length > 1 ? parts[1].trim() : "";
-
-        if (commandName.equals("exit")) {
-            System.out.println("Exiting client...");
-            System.exit(0);
-        }
-
-        if (commandName.equals("save")) {
-            System.out.println("The 'save' command is only available directly on the server.");
-            return;
-        }
-
-        if (commandName.equals("execute_script")) {
-            executeScript(commandArg);
-            return;
-        }
-
-        HumanBeing objectArg = null;
-        // Check if the command requires an object to be built
-        if (commandName.equals("add") || commandName.equals("add_if_min") ||
-                commandName.equals("remove_greater") || commandName.equals("update")) {
-
-            // update requires an ID in the argument
-            if (commandName.equals("update") && commandArg.isEmpty()) {
-                System.out.println("Usage: update <id>");
-                return;
-            }
-
-            System.out.println("Please enter the object details:");
-            try {
-                objectArg = readHumanBeing();
-            } catch (Exception e) {
-                System.out.println("Script parsing error (invalid data). Aborting command.");
-                return;
-            }
-        }
-
-        // Send to Server
-        Request request = new Request(commandName, commandArg, objectArg);
-        Response response = client.sendAndReceive(request);
-
-        // Handle Response
-        if (response != null) {
-            System.out.println(response.getMessage());
-            if (response.getCollection() != null && !response.getCollection().isEmpty()) {
-                for (HumanBeing hb : response.getCollection()) {
-                    System.out.println(hb);
-                }
-            }
-        }
-    }
-
-    private void executeScript(String scriptName) {
-        if (scriptName.isEmpty()) {
-            System.out.println(" Usage: execute_script <file_name>");
-            return;
-        }
-
-        File file = new File(scriptName);
-        try {
-            String canonicalPath = file.getCanonicalPath();
-            if (activeScripts.contains(canonicalPath)) {
-                System.out.println("Recursion detected: script " + scriptName + " is already running.");
-                return;
-            }
-
-            activeScripts.add(canonicalPath);
-            Scanner oldScanner = inputManager.getScanner(); // Save the console scanner
-
-            try (Scanner fileScanner = new Scanner(file)) {
-                inputManager.setScanner(fileScanner); // Switch InputManager to read from file
-                while (fileScanner.hasNextLine()) {
-                    String line = fileScanner.nextLine().trim();
-                    System.out.println("> " + line);
-                    processCommand(line);
-                }
-            } finally {
-                inputManager.setScanner(oldScanner); // Give control back to the console!
-                activeScripts.remove(canonicalPath);
-            }
-        } catch (FileNotFoundException e) {
-            System.out.println("Script file not found: " + scriptName);
-        } catch (Exception e) {
-            System.out.println("Error executing script: " + e.getMessage());
-        }
-    }
-
-    private HumanBeing readHumanBeing() {
-        String name = inputManager.readNonEmptyString("Enter name");
-        int x = inputManager.readInt("Enter coordinates.x");
-        int y = inputManager.readInt("Enter coordinates.y");
-        Coordinates coordinates = new Coordinates(x, y);
-        boolean realHero = inputManager.readBoolean("Enter realHero");
-        Boolean hasToothpick = inputManager.readBooleanNullable("Enter hasToothpick");
-
-        double impactSpeed;
-        while (true) {
-            impactSpeed = inputManager.readDouble("Enter impactSpeed (> -64)");
-            if (impactSpeed > -64) break;
-            System.out.println("impactSpeed must be > -64. Try again.");
-        }
-
-        String soundtrackName = inputManager.readNonEmptyString("Enter soundtrackName");
-        Integer minutesOfWaiting = inputManager.readIntNullable("Enter minutesOfWaiting");
-        Mood mood = inputManager.readEnum("Enter mood", Mood.class);
-
-        Car car = null;
-        boolean hasCar = inputManager.readBoolean("Do you want to enter car? (true = yes, false = no)");
-        if (hasCar) {
-            String carName = inputManager.readNonEmptyString("Enter car.name");
-            Boolean carCool = inputManager.readBooleanNullable("Enter car.cool");
-            car = new Car(carName, carCool);
-        }
-
-        // Dummy ID and Date (Server generates real ones)
-        return new HumanBeing(
-                1, name, coordinates, java.time.LocalDate.now(), realHero,
-                hasToothpick, impactSpeed, soundtrackName, minutesOfWaiting, mood, car
-        );
-    }
+package client;
+
+import common.model.Car;
+import common.model.Coordinates;
+import common.model.Field;
+import common.model.HumanBeing;
+import common.model.Mood;
+import common.model.Row;
+import common.network.Request;
+import common.network.Response;
+import util.InputManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+
+public class ClientApp {
+    private static final int MAX_BATCH = 256; // script commands sent in one batch request, at most
+
+    private final UDPClient client;
+    private final InputManager inputManager;
+    private final Set<String> activeScripts; // Prevents infinite script recursion
+    private int pageSize; // > 0: list commands are fetched and printed page by page
+    private CollectionReplica replica; // null: show always gets the whole collection
+    private int fields; // Field mask list commands print, 0 = whole elements
+
+    // While a script runs, its commands are collected and sent in batches.
+    // Each line's console output is held back and printed together with its result.
+    private List<ScriptStep> batch;
+    private int batchRequests;
+    private int batchBytes; // encoded size of the batch so far, an upper bound
+    private ScriptStep currentStep;
+    private PrintStream out = System.out;
+
+    private static class ScriptStep {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final PrintStream printer = new PrintStream(output, true);
+        Request request; // null if the line needs no server
+    }
+
+    public ClientApp(UDPClient client) {
+        this.client = client;
+        this.inputManager = new InputManager(new Scanner(System.in));
+        this.activeScripts = new HashSet<>();
+    }
+
+    // 0 turns paging off: list commands print the whole result at once
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Which fields list commands print, e.g. "id,name,impactSpeed"; an empty string prints whole elements.
+     * Only those fields are sent by the server.
+     * @throws IllegalArgumentException for an unknown field name
+     */
+    public void setFields(String names) {
+        this.fields = Field.parseMask(names);
+    }
+
+    // With a replica, show only fetches what changed since the last show.
+    public void setReplicaEnabled(boolean enabled) {
+        this.replica = enabled ? new CollectionReplica() : null;
+    }
+
+    public void start() {
+        System.out.println("Interactive mode started. Type 'help'.");
+
+        while (true) {
+            System.out.print("> ");
+            if (!inputManager.getScanner().hasNextLine()) break; // End of input (Ctrl+D)
+            String inputLine = inputManager.getScanner().nextLine().trim();
+            processCommand(inputLine);
+        }
+    }
+
+    private void processCommand(String inputLine) {
+        if (inputLine.isEmpty()) return;
+
+        String[] parts = inputLine.split(" ", 2);
+        String commandName = parts[0].toLowerCase();
+        String commandArg = parts.length > 1 ? parts[1].trim() : "";
+
+        if (commandName.equals("exit")) {
+            if (batch != null) flushBatch(); // run what the script has queued so far
+            out.println("Exiting client...");
+            System.exit(0);
+        }
+
+        if (commandName.equals("save")) {
+            out.println("The 'save' command is only available directly on the server.");
+            return;
+        }
+
+        if (commandName.equals("execute_script")) {
+            executeScript(commandArg);
+            return;
+        }
+
+        if (commandName.equals("fields")) {
+            try {
+                setFields(commandArg);
+                out.println(fields == 0 ? "List commands print whole elements." : "List commands print: " + commandArg);
+            } catch (IllegalArgumentException e) {
+                out.println(e.getMessage());
+            }
+            return;
+        }
+
+        HumanBeing objectArg = null;
+        // Check if the command requires an object to be built
+        if (commandName.equals("add") || commandName.equals("add_if_min") ||
+                commandName.equals("remove_greater") || commandName.equals("update")) {
+
+            // update requires an ID in the argument
+            if (commandName.equals("update") && commandArg.isEmpty()) {
+                out.println("Usage: update <id>");
+                return;
+            }
+
+            out.println("Please enter the object details:");
+            try {
+                objectArg = readHumanBeing();
+            } catch (Exception e) {
+                out.println("Script parsing error (invalid data). Aborting command.");
+                return;
+            }
+        }
+
+        Request request = new Request(commandName, commandArg, objectArg);
+        request.setFields(fields);
+        if (batch != null) {
+            addToBatch(request); // sent with the rest of the script
+            return;
+        }
+
+        if (commandName.equals("show") && replica != null) {
+            showFromReplica();
+            return;
+        }
+
+        // Send to Server
+        request.setPageSize(pageSize);
+        Response response = client.sendAndReceive(request);
+        printResponse(response);
+
+        // Paged listing: the next page is only fetched when the user asks for it
+        while (response != null && response.getCursor() != 0 && morePages()) {
+            Request next = new Request(commandName, commandArg, null);
+            next.setPageSize(pageSize);
+            next.setCursor(response.getCursor());
+            next.setFields(fields);
+            response = client.sendAndReceive(next);
+            if (response != null && response.getCollection() == null && response.getRows() == null) {
+                out.println(response.getMessage());
+            }
+            printElements(response);
+        }
+    }
+
+    private void showFromReplica() {
+        Response response = client.sendAndReceive(replica.syncRequest());
+        if (response == null) return;
+        if (!replica.apply(response)) {
+            out.println(response.getMessage());
+            return;
+        }
+
+        List<HumanBeing> elements = replica.getElements();
+        if (elements.isEmpty()) {
+            out.println("Collection elements: none");
+            return;
+        }
+        out.println("Collection elements: " + elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            if (pageSize > 0 && i > 0 && i % pageSize == 0 && !morePages()) return;
+            out.println(fields == 0 ? elements.get(i) : Row.of(elements.get(i), fields));
+        }
+    }
+
+    private void printResponse(Response response) {
+        // Handle Response
+        if (response != null) {
+            out.println(response.getMessage());
+            printElements(response);
+        }
+    }
+
+    private void printElements(Response response) {
+        if (response == null) return;
+        if (response.getCollection() != null) {
+            for (HumanBeing hb : response.getCollection()) {
+                out.println(hb);
+            }
+        }
+        if (response.getRows() != null) {
+            for (Row row : response.getRows()) {
+                out.println(row);
+            }
+        }
+    }
+
+    private boolean morePages() {
+        out.print("-- more: Enter = next page, anything else = stop -- ");
+        Scanner scanner = inputManager.getScanner();
+        return scanner.hasNextLine() && scanner.nextLine().trim().isEmpty();
+    }
+
+    private void executeScript(String scriptName) {
+        if (scriptName.isEmpty()) {
+            out.println(" Usage: execute_script <file_name>");
+            return;
+        }
+
+        File file = new File(scriptName);
+        try {
+            String canonicalPath = file.getCanonicalPath();
+            if (activeScripts.contains(canonicalPath)) {
+                out.println("Recursion detected: script " + scriptName + " is already running.");
+                return;
+            }
+
+            activeScripts.add(canonicalPath);
+            Scanner oldScanner = inputManager.getScanner(); // Save the console scanner
+            boolean topLevel = batch == null; // nested scripts add to the same batch
+            if (topLevel) batch = new ArrayList<>();
+
+            try (Scanner fileScanner = new Scanner(file)) {
+                inputManager.setScanner(fileScanner); // Switch InputManager to read from file
+                while (fileScanner.hasNextLine()) {
+                    String line = fileScanner.nextLine().trim();
+                    beginStep();
+                    out.println("> " + line);
+                    processCommand(line);
+                }
+            } finally {
+                inputManager.setScanner(oldScanner); // Give control back to the console!
+                activeScripts.remove(canonicalPath);
+                if (topLevel) {
+                    flushBatch();
+                    batch = null;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            out.println("Script file not found: " + scriptName);
+        } catch (Exception e) {
+            out.println("Error executing script: " + e.getMessage());
+        }
+    }
+
+    // Starts collecting the output of the next script line, sending the batch first if it is full.
+    private void beginStep() {
+        if (batchRequests >= MAX_BATCH) flushBatch();
+
+        currentStep = new ScriptStep();
+        batch.add(currentStep);
+        setOut(currentStep.printer);
+    }
+
+    /**
+     * Sets the request of the current script line.
+     * If the batch would no longer fit in one message with it, the lines before it are sent first.
+     */
+    private void addToBatch(Request request) {
+        int size = client.encodedSize(request);
+        int limit = client.getMaxMessageSize();
+
+        if (batchRequests > 0 && (size < 0 || batchBytes + size > limit)) {
+            // Requests encoded one by one over-count what a batch shares (class descriptors, repeated strings),
+            // so measure the real batch before splitting it
+            int actual = -1;
+            if (size >= 0) {
+                List<Request> requests = batchedRequests();
+                requests.add(request);
+                actual = client.encodedSize(new Request(requests));
+            }
+
+            if (actual < 0) {
+                ScriptStep step = currentStep;
+                batch.remove(step);
+                flushBatch();
+                batch.add(step);
+                currentStep = step;
+                setOut(step.printer);
+                batchBytes = size < 0 ? limit : size; // too large alone: it is sent by itself and fails
+            } else {
+                batchBytes = actual;
+            }
+        } else {
+            batchBytes = size < 0 ? limit : batchBytes + size;
+        }
+
+        currentStep.request = request;
+        batchRequests++;
+    }
+
+    private List<Request> batchedRequests() {
+        List<Request> requests = new ArrayList<>();
+        for (ScriptStep step : batch) {
+            if (step.request != null) requests.add(step.request);
+        }
+        return requests;
+    }
+
+    // Sends the collected commands as one request, then prints every line's output followed by its result.
+    private void flushBatch() {
+        setOut(System.out);
+
+        List<Request> requests = batchedRequests();
+        List<Response> results = null;
+        // what happened to commands without a result: sendAndReceive has already printed why
+        String lost = null;
+        if (!requests.isEmpty()) {
+            Request request = new Request(requests);
+            Response response = client.sendAndReceive(request);
+            if (response != null) results = response.getResults();
+
+            if (response != null && results == null) {
+                out.println(response.getMessage()); // the server refused the batch
+                lost = "was not executed.";
+            } else if (response == null && client.encodedSize(request) < 0) {
+                lost = "was not executed."; // never left the client
+            } else {
+                // no answer in time: the server may well have run the batch, and retries are not executed twice
+                lost = "may or may not have been executed: the server did not answer. Check with 'show' or 'info'.";
+            }
+        }
+
+        int next = 0;
+        for (ScriptStep step : batch) {
+            out.print(step.output);
+            if (step.request == null) continue;
+            if (results != null && next < results.size()) {
+                printResponse(results.get(next++));
+            } else {
+                out.println("Command '" + step.request.getCommandName() + "' " + lost);
+            }
+        }
+        batch.clear();
+        batchRequests = 0;
+        batchBytes = 0;
+        currentStep = null;
+    }
+
+    private void setOut(PrintStream out) {
+        this.out = out;
+        inputManager.setOut(out);
+    }
+
+    private HumanBeing readHumanBeing() {
+        String name = inputManager.readNonEmptyString("Enter name");
+        int x = inputManager.readInt("Enter coordinates.x");
+        int y = inputManager.readInt("Enter coordinates.y");
+        Coordinates coordinates = new Coordinates(x, y);
+        boolean realHero = inputManager.readBoolean("Enter realHero");
+        Boolean hasToothpick = inputManager.readBooleanNullable("Enter hasToothpick");
+
+        double impactSpeed;
+        while (true) {
+            impactSpeed = inputManager.readDouble("Enter impactSpeed (> -64)");
+            if (impactSpeed > -64) break;
+            out.println("impactSpeed must be > -64. Try again.");
+        }
+
+        String soundtrackName = inputManager.readNonEmptyString("Enter soundtrackName");
+        Integer minutesOfWaiting = inputManager.readIntNullable("Enter minutesOfWaiting");
+        Mood mood = inputManager.readEnum("Enter mood", Mood.class);
+
+        Car car = null;
+        boolean hasCar = inputManager.readBoolean("Do you want to enter car? (true = yes, false = no)");
+        if (hasCar) {
+            String carName = inputManager.readNonEmptyString("Enter car.name");
+            Boolean carCool = inputManager.readBooleanNullable("Enter car.cool");
+            car = new Car(carName, carCool);
+        }
+
+        // Dummy ID and Date (Server generates real ones)
+        return new HumanBeing(
+                1, name, coordinates, java.time.LocalDate.now(), realHero,
+                hasToothpick, impactSpeed, soundtrackName, minutesOfWaiting, mood, car
+        );
+    }
 }
\ No newline at end of file
@@ -1,17 +1,27 @@
-package client;
-
-public class ClientMain {
-    public static void main(String[] args) {
-        try {
-            // Connect to the server on localhost port 8080
-            UDPClient client = new UDPClient("localhost", 8080);
-
-            // Start the interactive terminal
-            ClientApp app = new ClientApp(client);
-            app.start();
-
-        } catch (Exception e) {
-            System.out.println("Error starting client: " + e.getMessage());
-        }
-    }
+package client;
+
+import common.network.MessageCodec;
+
+public class ClientMain {
+    public static void main(String[] args) {
+        try {
+            // Connect to the server on localhost port 8080
+            // -Dcodec=binary switches to the compact wire format (the server must use the same)
+            // -DpageSize=N prints list commands N elements at a time (Enter shows the next page)
+            // -Dreplica=false makes show fetch the whole collection every time instead of only the changes
+            // -Dfields=id,name,impactSpeed makes list commands send and print only those fields
+            MessageCodec codec = MessageCodec.byName(System.getProperty("codec"));
+            UDPClient client = new UDPClient("localhost", 8080, codec);
+
+            // Start the interactive terminal
+            ClientApp app = new ClientApp(client);
+            app.setPageSize(Integer.getInteger("pageSize", 0));
+            app.setReplicaEnabled(Boolean.parseBoolean(System.getProperty("replica", "true")));
+            app.setFields(System.getProperty("fields", ""));
+            app.start();
+
+        } catch (Exception e) {
+            System.out.println("Error starting client: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
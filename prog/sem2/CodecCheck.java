@@ -0,0 +1,183 @@
+package common.network;
+
+import common.model.Car;
+import common.model.Coordinates;
+import common.model.Field;
+import common.model.HumanBeing;
+import common.model.Mood;
+import common.model.Row;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Round-trip check for both codecs, run by hand after changing the wire format:
+ * java common.network.CodecCheck [seed]
+ * Every sample message is decoded from both codecs and encoded again with BinaryCodec, which has to give the same bytes,
+ * so a field the codecs forget shows up as a difference. Then damaged binary messages (truncated, bytes flipped)
+ * must fail with IOException and nothing else. Exits with status 1 if anything is wrong.
+ */
+public final class CodecCheck {
+
+    private static final int DAMAGED_PER_SAMPLE = 2000;
+
+    private final BinaryCodec binary = new BinaryCodec();
+    private final JavaSerializationCodec serialization = new JavaSerializationCodec();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BufferPool.MAX_DATAGRAM_SIZE * 4);
+    private int failures;
+
+    private CodecCheck() {
+    }
+
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : System.nanoTime();
+        CodecCheck check = new CodecCheck();
+        List<Object> samples = samples();
+        for (Object sample : samples) check.roundTrip(sample);
+        Random random = new Random(seed);
+        for (Object sample : samples) check.damaged(sample, random);
+        check.deeplyNested();
+
+        System.out.println("Samples: " + samples.size() + ", seed: " + seed + ", failures: " + check.failures);
+        if (check.failures > 0) System.exit(1);
+    }
+
+    private void roundTrip(Object message) {
+        try {
+            byte[] expected = encode(binary, message);
+            check(message, "binary", encode(binary, decode(binary, expected)), expected);
+            check(message, "serialization", encode(binary, decode(serialization, encode(serialization, message))), expected);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            fail(message, "round trip failed: " + e);
+        }
+    }
+
+    // Truncations and random byte flips: the decoder may accept them or throw IOException, but nothing else.
+    private void damaged(Object message, Random random) {
+        byte[] bytes;
+        try {
+            bytes = encode(binary, message);
+        } catch (IOException e) {
+            fail(message, "encode failed: " + e);
+            return;
+        }
+
+        for (int length = 0; length < bytes.length; length++) {
+            decodeDamaged(message, Arrays.copyOf(bytes, length));
+        }
+        for (int i = 0; i < DAMAGED_PER_SAMPLE; i++) {
+            byte[] copy = bytes.clone();
+            int flips = 1 + random.nextInt(4);
+            for (int f = 0; f < flips; f++) {
+                // past the magic and version byte, so the damage reaches the body
+                int at = 2 + random.nextInt(copy.length - 2);
+                copy[at] = (byte) random.nextInt(256);
+            }
+            decodeDamaged(message, copy);
+        }
+    }
+
+    // A batch of batches thousands deep would overflow the decoder's stack if it followed it.
+    private void deeplyNested() {
+        Request request = new Request("show", null, null);
+        for (int i = 0; i < 5000; i++) request = new Request(List.of(request));
+        try {
+            decode(binary, encode(binary, request));
+            fail(request, "deeply nested batch was accepted");
+        } catch (IOException expected) {
+            // rejected
+        } catch (ClassNotFoundException | RuntimeException | StackOverflowError e) {
+            fail(request, "deeply nested batch failed with " + e);
+        }
+    }
+
+    private void decodeDamaged(Object message, byte[] bytes) {
+        try {
+            decode(binary, bytes);
+        } catch (IOException ignored) {
+            // expected
+        } catch (ClassNotFoundException | RuntimeException | StackOverflowError | OutOfMemoryError e) {
+            fail(message, "damaged message " + Arrays.toString(bytes) + " failed with " + e);
+        }
+    }
+
+    private byte[] encode(MessageCodec codec, Object message) throws IOException {
+        buffer.clear();
+        codec.encode(message, buffer);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static Object decode(MessageCodec codec, byte[] bytes) throws IOException, ClassNotFoundException {
+        return codec.decode(ByteBuffer.wrap(bytes));
+    }
+
+    private void check(Object message, String codec, byte[] actual, byte[] expected) {
+        if (!Arrays.equals(actual, expected)) fail(message, codec + " round trip changed the message");
+    }
+
+    private void fail(Object message, String what) {
+        failures++;
+        System.out.println(message.getClass().getSimpleName() + ": " + what);
+    }
+
+    private static List<Object> samples() {
+        HumanBeing full = new HumanBeing(1, "Anna", new Coordinates(-5, 12), LocalDate.of(2024, 2, 29),
+                true, false, -63.5, "Слот — Одна", 42, Mood.RAGE, new Car("Lada", true));
+        HumanBeing sparse = new HumanBeing(Integer.MAX_VALUE, "B", new Coordinates(Integer.MIN_VALUE, Integer.MAX_VALUE),
+                LocalDate.of(1970, 1, 1), false, null, Double.POSITIVE_INFINITY, "", null, Mood.SORROW, null);
+        HumanBeing carless = new HumanBeing(7, "Anna", new Coordinates(0, 0), LocalDate.of(2000, 12, 31),
+                true, true, 0.1, "Слот — Одна", 0, Mood.APATHY, new Car("", null));
+
+        List<Object> samples = new ArrayList<>();
+
+        samples.add(new Request("show", null, null));
+        samples.add(new Request("add", null, full));
+        samples.add(new Request("update", "7", carless));
+        samples.add(new Request("filter_by_mood", "RAGE", sparse));
+
+        Request page = new Request("show", "", null);
+        page.setCorrelationId(123456);
+        page.setPageSize(50);
+        page.setCursor(Long.MAX_VALUE);
+        page.setFields(Field.ID.bit() | Field.NAME.bit() | Field.CAR.bit());
+        samples.add(page);
+
+        Request inner = new Request("remove_by_id", "1", null);
+        inner.setCorrelationId(-1);
+        samples.add(new Request(List.of(new Request("add", null, full), inner, page)));
+        samples.add(new Request(List.of()));
+
+        samples.add(new Response("OK", null));
+        samples.add(new Response("", List.of(full, sparse, carless)));
+
+        Response rows = new Response("rows", null);
+        rows.setRows(List.of(Row.of(full, Field.ALL), Row.of(sparse, Field.ID.bit() | Field.MOOD.bit()),
+                Row.of(carless, Field.CAR.bit() | Field.CREATION_DATE.bit() | Field.HAS_TOOTHPICK.bit())));
+        rows.setCursor(99);
+        samples.add(rows);
+
+        Response delta = new Response("delta", List.of(carless));
+        delta.setCorrelationId(Integer.MIN_VALUE);
+        delta.setVersion(Long.MAX_VALUE);
+        delta.setRemovedIds(new int[] {1, 2, Integer.MAX_VALUE});
+        samples.add(delta);
+
+        Response sync = new Response("sync", List.of(full));
+        sync.setVersion(1);
+        sync.setFullSync(true);
+        sync.setRemovedIds(new int[0]);
+        samples.add(sync);
+
+        samples.add(new Response(List.of(new Response("first", null), delta, rows)));
+        samples.add(new Response(List.of()));
+        return samples;
+    }
+}
@@ -0,0 +1,53 @@
+package client;
+
+import common.model.HumanBeing;
+import common.network.Request;
+import common.network.Response;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The client's copy of the collection, in stack order.
+ * It is brought up to date with a "sync" request carrying the version it has; the server answers
+ * with only the elements added or changed since then and the ids removed, or with a full copy
+ * when its change log does not reach back that far.
+ */
+public class CollectionReplica {
+
+    private long version = -1; // -1 = no copy yet
+    private final Map<Integer, HumanBeing> elements = new LinkedHashMap<>();
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Request syncRequest() {
+        return new Request("sync", Long.toString(version), null);
+    }
+
+    // @return false if the response is not a sync reply (e.g. an error message)
+    public boolean apply(Response response) {
+        if (response.getRemovedIds() == null) return false;
+
+        if (response.isFullSync()) elements.clear();
+        for (int id : response.getRemovedIds()) elements.remove(id);
+
+        List<HumanBeing> upserted = response.getCollection();
+        if (upserted != null) {
+            for (HumanBeing hb : upserted) {
+                elements.remove(hb.getId()); // a changed element moves to the top of the stack
+                elements.put(hb.getId(), hb);
+            }
+        }
+        version = response.getVersion();
+        return true;
+    }
+
+    // Elements in stack order (bottom first).
+    public List<HumanBeing> getElements() {
+        return new ArrayList<>(elements.values());
+    }
+}
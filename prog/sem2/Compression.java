@@ -0,0 +1,99 @@
+package common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression of encoded messages, used only for messages above a size threshold:
+ * small replies gain almost nothing and would only cost CPU.
+ * Compressed form: [int original length][deflate stream]; the fragments carry Fragment.COMPRESSED.
+ * Deflaters and Inflaters hold native memory, so they are kept in small pools shared by all threads
+ * (a virtual thread per request would make per-thread copies useless) and end()ed when a pool is full. Thread-safe.
+ */
+public class Compression {
+
+    public static final int DEFAULT_THRESHOLD = 4 * 1024;
+    public static final int DEFAULT_LEVEL = Deflater.BEST_SPEED;
+    private static final int MAX_ORIGINAL_LENGTH = 1 << 28;
+
+    private static final int MAX_POOLED = 16;
+
+    private static final ArrayBlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final ArrayBlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private final int threshold;
+    private final int level;
+
+    public Compression() {
+        this(DEFAULT_THRESHOLD, DEFAULT_LEVEL);
+    }
+
+    public Compression(int threshold, int level) {
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Compresses message (position..limit, left untouched).
+     * @return the compressed message, or null if it is below the threshold or would not get smaller
+     */
+    public ByteBuffer compress(ByteBuffer message) {
+        int length = message.remaining();
+        if (length < threshold) return null;
+
+        Deflater deflater = DEFLATERS.poll();
+        if (deflater == null) deflater = new Deflater(level);
+        try {
+            deflater.setLevel(level);
+            deflater.setInput(message.duplicate());
+            deflater.finish();
+
+            // anything that does not fit in the original size is not worth sending compressed
+            ByteBuffer out = ByteBuffer.allocate(length);
+            out.putInt(length);
+            while (!deflater.finished()) {
+                if (!out.hasRemaining()) return null;
+                deflater.deflate(out);
+            }
+            out.flip();
+            return out;
+        } finally {
+            deflater.reset();
+            if (!DEFLATERS.offer(deflater)) deflater.end();
+        }
+    }
+
+    public static ByteBuffer decompress(ByteBuffer compressed) throws IOException {
+        int length = compressed.getInt();
+        if (length < 0 || length > MAX_ORIGINAL_LENGTH) throw new IOException("Bad compressed length: " + length);
+
+        Inflater inflater = INFLATERS.poll();
+        if (inflater == null) inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+
+            ByteBuffer out = ByteBuffer.allocate(length);
+            try {
+                while (out.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(out) == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupted compressed message", e);
+            }
+            if (out.hasRemaining() || !inflater.finished()) throw new IOException("Truncated compressed message");
+            out.flip();
+            return out;
+        } finally {
+            inflater.reset();
+            if (!INFLATERS.offer(inflater)) inflater.end();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package server;
+
+import model.HumanBeing;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open paged listings. A cursor is a random token for "this list, from this position":
+ * the list is the snapshot the first page was cut from (elements are immutable and the lists
+ * the manager returns are copies), so every page of one listing comes from the same state
+ * of the collection even if clients change it in between.
+ * Asking for the same cursor twice returns the same page, so a retransmitted request is harmless.
+ * Cursors unused for DEFAULT_TTL are dropped, and the least recently used go first when there are too many.
+ * Thread-safe.
+ */
+public class CursorRegistry {
+
+    public static final long DEFAULT_TTL_NANOS = TimeUnit.MINUTES.toNanos(2);
+    public static final int DEFAULT_MAX_CURSORS = 1024;
+
+    private final long ttlNanos;
+    private final int maxCursors;
+    private final LinkedHashMap<Long, Cursor> cursors = new LinkedHashMap<>(16, 0.75f, true);
+
+    public static class Cursor {
+        private final String title;
+        private final List<HumanBeing> elements;
+        private final int offset;
+        private long lastUsed = System.nanoTime();
+
+        Cursor(String title, List<HumanBeing> elements, int offset) {
+            this.title = title;
+            this.elements = elements;
+            this.offset = offset;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public List<HumanBeing> getElements() {
+            return elements;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+    }
+
+    public CursorRegistry() {
+        this(DEFAULT_TTL_NANOS, DEFAULT_MAX_CURSORS);
+    }
+
+    public CursorRegistry(long ttlNanos, int maxCursors) {
+        this.ttlNanos = ttlNanos;
+        this.maxCursors = maxCursors;
+    }
+
+    // @return a new non-zero token for elements[offset..]
+    public synchronized long open(String title, List<HumanBeing> elements, int offset) {
+        long token;
+        do {
+            token = ThreadLocalRandom.current().nextLong();
+        } while (token == 0 || cursors.containsKey(token));
+
+        cursors.put(token, new Cursor(title, elements, offset));
+        evict(System.nanoTime());
+        return token;
+    }
+
+    // @return the cursor, or null if it is unknown or has expired
+    public synchronized Cursor get(long token) {
+        long now = System.nanoTime();
+        evict(now);
+        Cursor cursor = cursors.get(token);
+        if (cursor != null) cursor.lastUsed = now;
+        return cursor;
+    }
+
+    private void evict(long now) {
+        Iterator<Map.Entry<Long, Cursor>> it = cursors.entrySet().iterator();
+        while (it.hasNext()) {
+            Cursor cursor = it.next().getValue();
+            if (cursors.size() <= maxCursors && now - cursor.lastUsed < ttlNanos) break; // the rest were used later
+            it.remove();
+        }
+    }
+}
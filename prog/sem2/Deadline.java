@@ -0,0 +1,31 @@
+package server;
+
+import manager.Cancellation;
+
+/**
+ * The time by which a request has to be answered, counted from its arrival.
+ * RequestHandler checks it before every command, so a request that already waited too long
+ * (in the pool queue, or behind the earlier commands of a batch) gets a "timed out" reply instead of running late.
+ *
+ * A command that has started is cancelled only where it scans (query, remove_greater, remove_all_by_minutes_of_waiting):
+ * the scans check the deadline as a Cancellation before they change anything, so nothing half done is journaled.
+ * The handling thread is not interrupted, since an interrupt during a journal write
+ * closes the journal's FileChannel (ClosedByInterruptException) for every later request.
+ */
+class Deadline implements Cancellation {
+
+    private final long at; // System.nanoTime()
+
+    Deadline(long at) {
+        this.at = at;
+    }
+
+    public boolean passed() {
+        return System.nanoTime() - at >= 0;
+    }
+
+    @Override
+    public boolean cancelled() {
+        return passed();
+    }
+}
@@ -0,0 +1,58 @@
+package common.model;
+
+/**
+ * Fields of HumanBeing a request can ask for, so list commands send only what the client shows.
+ * A set of fields travels as a bit mask: bit n = the field with ordinal n.
+ */
+public enum Field {
+    ID("id"),
+    NAME("name"),
+    COORDINATES("coordinates"),
+    CREATION_DATE("creationDate"),
+    REAL_HERO("realHero"),
+    HAS_TOOTHPICK("hasToothpick"),
+    IMPACT_SPEED("impactSpeed"),
+    SOUNDTRACK_NAME("soundtrackName"),
+    MINUTES_OF_WAITING("minutesOfWaiting"),
+    MOOD("mood"),
+    CAR("car");
+
+    public static final int ALL = (1 << values().length) - 1;
+
+    private final String fieldName;
+
+    Field(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean in(int mask) {
+        return (mask & bit()) != 0;
+    }
+
+    /**
+     * @param names field names as in HumanBeing separated by commas or spaces, e.g. "id,name,impactSpeed"
+     * @return the mask, 0 for an empty string
+     * @throws IllegalArgumentException for an unknown name
+     */
+    public static int parseMask(String names) {
+        int mask = 0;
+        for (String name : names.trim().split("[,\\s]+")) {
+            if (name.isEmpty()) continue;
+            Field field = null;
+            for (Field f : values()) {
+                if (f.fieldName.equalsIgnoreCase(name)) field = f;
+            }
+            if (field == null) throw new IllegalArgumentException("Unknown field: " + name);
+            mask |= field.bit();
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,135 @@
+package common.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One datagram of a fragmented message.
+ *
+ * An encoded Request or Response is cut into PAYLOAD_SIZE pieces, each sent as
+ * [byte MAGIC][byte flags][int messageId][int index][int count][payload].
+ * A reply carries the messageId of its request, so late replies to earlier requests can be told apart.
+ * A receiver missing pieces answers with a NACK datagram:
+ * [byte MAGIC][byte flags | NACK][int messageId][int n][n * int index]
+ * and the sender resends exactly those pieces.
+ */
+public final class Fragment {
+
+    public static final byte MAGIC = (byte) 0xF5;
+    public static final int HEADER_SIZE = 14;
+    // keeps every datagram within a typical Ethernet MTU, so one lost packet costs one fragment
+    public static final int PAYLOAD_SIZE = 1400;
+    public static final int MAX_FRAGMENTS = 1 << 16;
+    public static final int MAX_NACK_INDEXES = (HEADER_SIZE + PAYLOAD_SIZE - 10) / 4;
+
+    public static final int NACK = 1;
+    // the message is deflated (see Compression)
+    public static final int COMPRESSED = 1 << 1;
+
+    private final int flags;
+    private final int messageId;
+    private final int index;
+    private final int count;
+    private final ByteBuffer payload;
+
+    private Fragment(int flags, int messageId, int index, int count, ByteBuffer payload) {
+        this.flags = flags;
+        this.messageId = messageId;
+        this.index = index;
+        this.count = count;
+        this.payload = payload;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public boolean isNack() {
+        return (flags & NACK) != 0;
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    // Payload of a data fragment, a view of the datagram buffer
+    public ByteBuffer getPayload() {
+        return payload;
+    }
+
+    // Indexes requested by a NACK, all >= 0 but not checked against the message
+    public int[] getMissing() {
+        int[] missing = new int[count];
+        for (int i = 0; i < count; i++) missing[i] = payload.getInt(payload.position() + i * 4);
+        return missing;
+    }
+
+    /**
+     * Parses a received datagram (position..limit).
+     * @return null if it is not a well-formed fragment
+     */
+    public static Fragment read(ByteBuffer datagram) {
+        if (datagram.remaining() < 10 || datagram.get() != MAGIC) return null;
+        int flags = datagram.get() & 0xFF;
+        int messageId = datagram.getInt();
+
+        if ((flags & NACK) != 0) {
+            int n = datagram.getInt();
+            if (n < 0 || n > MAX_NACK_INDEXES || datagram.remaining() < n * 4) return null;
+            for (int i = 0; i < n; i++) {
+                if (datagram.getInt(datagram.position() + i * 4) < 0) return null;
+            }
+            return new Fragment(flags, messageId, -1, n, datagram.slice());
+        }
+
+        if (datagram.remaining() < 8) return null;
+        int index = datagram.getInt();
+        int count = datagram.getInt();
+        if (count <= 0 || count > MAX_FRAGMENTS || index < 0 || index >= count) return null;
+        if (datagram.remaining() > PAYLOAD_SIZE) return null;
+        return new Fragment(flags, messageId, index, count, datagram.slice());
+    }
+
+    // Number of fragments needed for a message of the given length (an empty message still takes one)
+    public static int count(int messageLength) {
+        return Math.max(1, (messageLength + PAYLOAD_SIZE - 1) / PAYLOAD_SIZE);
+    }
+
+    /**
+     * Writes fragment #index of message (position..limit, left untouched) into datagram.
+     * @throws IllegalArgumentException if the message needs more than MAX_FRAGMENTS pieces
+     */
+    public static void write(ByteBuffer datagram, int flags, int messageId, ByteBuffer message, int index) {
+        int count = count(message.remaining());
+        if (count > MAX_FRAGMENTS) throw new IllegalArgumentException("Message is too large: " + message.remaining() + " bytes");
+
+        int from = message.position() + index * PAYLOAD_SIZE;
+        int to = Math.min(from + PAYLOAD_SIZE, message.limit());
+
+        datagram.put(MAGIC);
+        datagram.put((byte) (flags & ~NACK));
+        datagram.putInt(messageId);
+        datagram.putInt(index);
+        datagram.putInt(count);
+        ByteBuffer piece = message.duplicate();
+        piece.limit(to).position(from);
+        datagram.put(piece);
+    }
+
+    // Writes a NACK for up to MAX_NACK_INDEXES of the given indexes into datagram.
+    public static void writeNack(ByteBuffer datagram, int messageId, int[] missing) {
+        int n = Math.min(missing.length, MAX_NACK_INDEXES);
+        datagram.put(MAGIC);
+        datagram.put((byte) NACK);
+        datagram.putInt(messageId);
+        datagram.putInt(n);
+        for (int i = 0; i < n; i++) datagram.putInt(missing[i]);
+    }
+}
@@ -0,0 +1,20 @@
+package common.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The original wire format: standard Java serialization (see SerializationUtils).
+ */
+public class JavaSerializationCodec implements MessageCodec {
+
+    @Override
+    public void encode(Object message, ByteBuffer buffer) throws IOException {
+        SerializationUtils.serialize(message, buffer);
+    }
+
+    @Override
+    public Object decode(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+        return SerializationUtils.deserialize(buffer);
+    }
+}
@@ -0,0 +1,31 @@
+package common.network;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns a Request or Response into bytes and back.
+ * Both sides of a connection have to use the same codec.
+ */
+public interface MessageCodec {
+
+    /**
+     * Writes the message at the buffer's position.
+     * @throws BufferOverflowException if the message does not fit
+     */
+    void encode(Object message, ByteBuffer buffer) throws IOException;
+
+    // Reads one message from the buffer's position up to its limit.
+    Object decode(ByteBuffer buffer) throws IOException, ClassNotFoundException;
+
+    // "binary" selects BinaryCodec, anything else the Java serialization codec
+    static MessageCodec byName(String name) {
+        return "binary".equalsIgnoreCase(name) ? new BinaryCodec() : new JavaSerializationCodec();
+    }
+
+    // Picks the codec by the first byte of a received message.
+    static MessageCodec detect(ByteBuffer buffer) {
+        return BinaryCodec.isBinary(buffer) ? new BinaryCodec() : new JavaSerializationCodec();
+    }
+}
@@ -0,0 +1,92 @@
+package server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts between the collection's model classes (package model)
+ * and the serializable copies sent over the network (package common.model).
+ */
+public final class ModelMapper {
+
+    private ModelMapper() {
+    }
+
+    public static common.model.HumanBeing toWire(model.HumanBeing hb) {
+        model.Car car = hb.getCar();
+        return new common.model.HumanBeing(
+                hb.getId(),
+                hb.getName(),
+                new common.model.Coordinates(hb.getCoordinates().getX(), hb.getCoordinates().getY()),
+                hb.getCreationDate(),
+                hb.getRealHero(),
+                hb.getHasToothpick(),
+                hb.getImpactSpeed(),
+                hb.getSoundtrackName(),
+                hb.getMinutesOfWaiting(),
+                common.model.Mood.valueOf(hb.getMood().name()),
+                car == null ? null : new common.model.Car(car.getName(), car.getCool())
+        );
+    }
+
+    public static List<common.model.HumanBeing> toWire(List<model.HumanBeing> list) {
+        List<common.model.HumanBeing> result = new ArrayList<>(list.size());
+        for (model.HumanBeing hb : list) result.add(toWire(hb));
+        return result;
+    }
+
+    // Converts only the fields in the mask (see common.model.Field)
+    public static common.model.Row toRow(model.HumanBeing hb, int fields) {
+        model.Car car = hb.getCar();
+        return new common.model.Row(
+                fields,
+                hb.getId(),
+                hb.getName(),
+                common.model.Field.COORDINATES.in(fields)
+                        ? new common.model.Coordinates(hb.getCoordinates().getX(), hb.getCoordinates().getY())
+                        : null,
+                hb.getCreationDate(),
+                hb.getRealHero(),
+                hb.getHasToothpick(),
+                hb.getImpactSpeed(),
+                hb.getSoundtrackName(),
+                hb.getMinutesOfWaiting(),
+                common.model.Field.MOOD.in(fields) ? common.model.Mood.valueOf(hb.getMood().name()) : null,
+                common.model.Field.CAR.in(fields) && car != null ? new common.model.Car(car.getName(), car.getCool()) : null
+        );
+    }
+
+    public static List<common.model.Row> toRows(List<model.HumanBeing> list, int fields) {
+        List<common.model.Row> result = new ArrayList<>(list.size());
+        for (model.HumanBeing hb : list) result.add(toRow(hb, fields));
+        return result;
+    }
+
+    public static model.HumanBeing toModel(common.model.HumanBeing hb) {
+        return new model.HumanBeing(
+                hb.getId(),
+                hb.getName(),
+                toModel(hb.getCoordinates()),
+                hb.getCreationDate(),
+                hb.getRealHero(),
+                hb.getHasToothpick(),
+                hb.getImpactSpeed(),
+                hb.getSoundtrackName(),
+                hb.getMinutesOfWaiting(),
+                toModel(hb.getMood()),
+                toModel(hb.getCar())
+        );
+    }
+
+    public static model.Coordinates toModel(common.model.Coordinates coordinates) {
+        return new model.Coordinates(coordinates.getX(), coordinates.getY());
+    }
+
+    public static model.Mood toModel(common.model.Mood mood) {
+        return model.Mood.valueOf(mood.name());
+    }
+
+    public static model.Car toModel(common.model.Car car) {
+        return car == null ? null : new model.Car(car.getName(), car.getCool());
+    }
+}
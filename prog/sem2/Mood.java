@@ -1,7 +1,7 @@
-package common.model;
-
-public enum Mood {
-    SORROW,
-    APATHY,
-    RAGE
-}
+package common.model;
+
+public enum Mood {
+    SORROW,
+    APATHY,
+    RAGE
+}
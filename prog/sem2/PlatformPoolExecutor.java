@@ -0,0 +1,55 @@
+package server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed number of platform threads and a bounded queue: a request waits in the queue
+ * while every worker is busy, and is rejected once the queue is full.
+ */
+public class PlatformPoolExecutor implements RequestExecutor {
+
+    private final ThreadPoolExecutor pool;
+
+    public PlatformPoolExecutor(int threads, int queueCapacity) {
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new WorkerThreadFactory());
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pool.execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void shutdownNow() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return pool.getMaximumPoolSize() + " platform threads";
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            return new Thread(task, "udp-server-worker-" + count.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package common.network;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Collects the fragments of one message in any order, ignoring duplicates.
+ * Not thread-safe.
+ */
+public class Reassembler {
+
+    private final int messageId;
+    private final int flags;
+    private final int count;
+    private final byte[] data;
+    private final BitSet received = new BitSet();
+    private int receivedCount;
+    private int length = -1; // known once the last fragment arrives
+
+    public Reassembler(Fragment first) {
+        this.messageId = first.getMessageId();
+        this.flags = first.getFlags();
+        this.count = first.getCount();
+        this.data = new byte[count * Fragment.PAYLOAD_SIZE];
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Stores the fragment's payload.
+     * @return true if the fragment was new
+     */
+    public boolean accept(Fragment fragment) {
+        int index = fragment.getIndex();
+        if (fragment.getMessageId() != messageId || fragment.getCount() != count || received.get(index)) {
+            return false;
+        }
+
+        ByteBuffer payload = fragment.getPayload();
+        int size = payload.remaining();
+        // every fragment but the last one is full
+        if (index < count - 1 ? size != Fragment.PAYLOAD_SIZE : size == 0 && count > 1) return false;
+
+        payload.get(data, index * Fragment.PAYLOAD_SIZE, size);
+        if (index == count - 1) length = index * Fragment.PAYLOAD_SIZE + size;
+        received.set(index);
+        receivedCount++;
+        return true;
+    }
+
+    public boolean isComplete() {
+        return receivedCount == count;
+    }
+
+    public int[] missing() {
+        int[] missing = new int[count - receivedCount];
+        int i = 0;
+        for (int index = received.nextClearBit(0); index < count; index = received.nextClearBit(index + 1)) {
+            missing[i++] = index;
+        }
+        return missing;
+    }
+
+    // The whole message; only valid once isComplete()
+    public ByteBuffer message() {
+        return ByteBuffer.wrap(data, 0, length);
+    }
+}
@@ -0,0 +1,133 @@
+package server;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers, per client and request id, whether a request is being executed and the encoded reply once it is done.
+ * A retransmitted request is then answered from here instead of being executed again
+ * (so add, update, remove_by_id are never applied twice), and fragments a client reports as lost (NACK)
+ * are resent without running the command.
+ * Bounded by reply bytes and by entries; least recently used finished replies are dropped first.
+ * A duplicate arriving after its reply was dropped is executed again. Thread-safe.
+ */
+public class ReplyCache {
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+    public enum State {
+        NEW, // not seen before: execute it
+        IN_PROGRESS, // a copy is being executed: drop this one
+        DONE // already answered: resend the cached reply
+    }
+
+    private final long maxBytes;
+    private final int maxEntries;
+    private long bytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ReplyCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_MAX_ENTRIES);
+    }
+
+    public ReplyCache(long maxBytes, int maxEntries) {
+        this.maxBytes = maxBytes;
+        this.maxEntries = maxEntries;
+    }
+
+    public static class Entry {
+        private final ByteBuffer message; // null while in progress
+        private final int flags;
+
+        Entry(ByteBuffer message, int flags) {
+            this.message = message;
+            this.flags = flags;
+        }
+
+        // read-only view; position..limit is the whole encoded reply
+        public ByteBuffer getMessage() {
+            return message.duplicate();
+        }
+
+        public int getFlags() {
+            return flags;
+        }
+
+        private int size() {
+            return message == null ? 0 : message.remaining();
+        }
+    }
+
+    // Called when a request arrives; a NEW request is marked as in progress.
+    public synchronized State begin(SocketAddress client, int messageId) {
+        Key key = new Key(client, messageId);
+        Entry entry = entries.get(key);
+        if (entry != null) return entry.message == null ? State.IN_PROGRESS : State.DONE;
+
+        entries.put(key, new Entry(null, 0));
+        evict();
+        return State.NEW;
+    }
+
+    // Stores the reply of a request; message is not copied and must not be changed afterwards
+    public synchronized void put(SocketAddress client, int messageId, ByteBuffer message, int flags) {
+        Entry old = entries.put(new Key(client, messageId), new Entry(message.asReadOnlyBuffer(), flags));
+        if (old != null) bytes -= old.size();
+        bytes += message.remaining();
+        evict();
+    }
+
+    // Forgets a request that failed before it had a reply, so a retry executes it again
+    public synchronized void abort(SocketAddress client, int messageId) {
+        Key key = new Key(client, messageId);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.message == null) entries.remove(key);
+    }
+
+    // @return the finished reply for messageId, or null if it is unknown, in progress or evicted
+    public synchronized Entry get(SocketAddress client, int messageId) {
+        Entry entry = entries.get(new Key(client, messageId));
+        return entry == null || entry.message == null ? null : entry;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while ((bytes > maxBytes || entries.size() > maxEntries) && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.message == null) continue; // never forget a request that is still running
+            bytes -= entry.size();
+            it.remove();
+        }
+    }
+
+    static final class Key {
+        private final SocketAddress client;
+        private final int messageId;
+
+        Key(SocketAddress client, int messageId) {
+            this.client = client;
+            this.messageId = messageId;
+        }
+
+        SocketAddress getClient() {
+            return client;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return messageId == key.messageId && client.equals(key.client);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(client, messageId);
+        }
+    }
+}
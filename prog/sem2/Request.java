@@ -1,31 +1,88 @@
-package common.network;
-
-import common.model.HumanBeing;
-
-import java.io.Serializable;
-
-public class Request implements Serializable {
-    private static final long serialVersionUID = 1L;
-
-    private final String commandName;
-    private final String commandStringArgument;
-    private final HumanBeing objectArgument;
-
-    public Request(String commandName, String commandStringArgument, HumanBeing objectArgument) {
-        this.commandName = commandName;
-        this.commandStringArgument = commandStringArgument;
-        this.objectArgument = objectArgument;
-    }
-
-    public String getCommandName() {
-        return commandName;
-    }
-
-    public String getCommandStringArgument() {
-        return commandStringArgument;
-    }
-
-    public HumanBeing getObjectArgument() {
-        return objectArgument;
-    }
+package common.network;
+
+import common.model.HumanBeing;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Request implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String BATCH = "batch";
+
+    private final String commandName;
+    private final String commandStringArgument;
+    private final HumanBeing objectArgument;
+    private final ArrayList<Request> batch; // commands of a "batch" request, executed in order
+    private int correlationId; // set by the client when the request is sent
+    private int pageSize; // list commands: elements per reply, 0 = all at once
+    private long cursor; // continues a paged listing, 0 = start a new one
+    private int fields; // list commands: Field mask of the rows to send, 0 = whole elements
+
+    public Request(String commandName, String commandStringArgument, HumanBeing objectArgument) {
+        this.commandName = commandName;
+        this.commandStringArgument = commandStringArgument;
+        this.objectArgument = objectArgument;
+        this.batch = null;
+    }
+
+    // One request carrying many commands; the server answers with one result per command
+    public Request(List<Request> batch) {
+        this.commandName = BATCH;
+        this.commandStringArgument = null;
+        this.objectArgument = null;
+        this.batch = new ArrayList<>(batch);
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+
+    public String getCommandStringArgument() {
+        return commandStringArgument;
+    }
+
+    public HumanBeing getObjectArgument() {
+        return objectArgument;
+    }
+
+    // null unless this is a batch
+    public List<Request> getBatch() {
+        return batch;
+    }
+
+    public int getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(int correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    // Asks for the page the cursor of an earlier reply points to (command and argument are then ignored)
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    // Asks list commands for Rows with only these fields (see Field.parseMask) instead of whole elements
+    public void setFields(int fields) {
+        this.fields = fields;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package server;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs decoded requests for UDPServer. Two modes share the interface so they can be swapped
+ * (and compared under the same load): a fixed pool of platform threads with a bounded queue,
+ * or one virtual thread per request with a bounded number of requests in flight.
+ */
+public interface RequestExecutor {
+
+    /**
+     * @throws RejectedExecutionException if the executor is full or shut down
+     */
+    void execute(Runnable task);
+
+    // Stops accepting tasks; tasks already accepted still run.
+    void shutdown();
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+
+    // Interrupts running tasks.
+    void shutdownNow();
+
+    static RequestExecutor platformPool(int threads, int queueCapacity) {
+        return new PlatformPoolExecutor(threads, queueCapacity);
+    }
+
+    static RequestExecutor virtualThreads(int maxInFlight) {
+        return new VirtualThreadExecutor(maxInFlight);
+    }
+
+    // mode is "pool" or "virtual"
+    static RequestExecutor create(String mode, int threads, int queueCapacity) {
+        switch (mode) {
+            case "pool":
+                return platformPool(threads, queueCapacity);
+            case "virtual":
+                return virtualThreads(threads + queueCapacity);
+            default:
+                throw new IllegalArgumentException("Unknown executor mode: " + mode + " (expected pool or virtual)");
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package server;
+
+import common.network.Request;
+import common.network.Response;
+import manager.Cancellation;
+import manager.ChangeLog;
+import manager.CollectionManager;
+import manager.Query;
+import manager.QueryParser;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Executes one client command against the collection and builds the reply.
+ * Stateless apart from the manager (which does its own locking), so worker threads can share one instance.
+ * A command whose request is past its Deadline, or whose thread has been interrupted, is not started,
+ * and the scans of query and the remove_* commands give up once it passes.
+ * List commands with a page size answer one page at a time through a CursorRegistry,
+ * and with a field mask send Rows with just those fields.
+ * Every reply carries the collection version; "sync" sends a client cache only what changed since its version.
+ * "query" texts are compiled once and kept in a small LRU map, so a repeated query skips the parser.
+ */
+public class RequestHandler {
+
+    private static final Map<String, String> COMMANDS = new LinkedHashMap<>();
+    private static final int MAX_COMPILED_QUERIES = 256;
+
+    static {
+        COMMANDS.put("help", "show available commands");
+        COMMANDS.put("info", "print information about the collection");
+        COMMANDS.put("show", "print all elements");
+        COMMANDS.put("add", "add a new element");
+        COMMANDS.put("update", "update element by id: update <id>");
+        COMMANDS.put("remove_by_id", "remove element by id: remove_by_id <id>");
+        COMMANDS.put("clear", "clear the collection");
+        COMMANDS.put("execute_script", "execute commands from a file: execute_script <file_name>");
+        COMMANDS.put("exit", "exit the client");
+        COMMANDS.put("fields", "print only these fields in list commands, e.g. fields id,name,impactSpeed (empty = all)");
+        COMMANDS.put("shuffle", "shuffle the collection");
+        COMMANDS.put("add_if_min", "add a new element if it is smaller than the minimum");
+        COMMANDS.put("remove_greater", "remove all elements greater than the given one");
+        COMMANDS.put("print_descending", "print elements in descending order");
+        COMMANDS.put("filter_by_impact_speed", "print elements with the given impactSpeed: filter_by_impact_speed <value>");
+        COMMANDS.put("query", "print elements matching a condition: query [condition] [order by field [desc], ...] [limit n],"
+                + " e.g. query impactSpeed >= 10 and (mood = RAGE or car IS NULL) order by name limit 20");
+        COMMANDS.put("remove_all_by_minutes_of_waiting", "remove all elements with the given minutesOfWaiting (empty = null)");
+        COMMANDS.put("sync", "changes since the given collection version, used by the client cache: sync <version>");
+    }
+
+    private final CollectionManager manager;
+    private final CursorRegistry cursors = new CursorRegistry();
+    private final Map<String, Query> queries = Collections.synchronizedMap(
+            new LinkedHashMap<String, Query>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Query> eldest) {
+                    return size() > MAX_COMPILED_QUERIES;
+                }
+            });
+
+    public RequestHandler(CollectionManager manager) {
+        this.manager = manager;
+    }
+
+    public Response handle(Request request) {
+        return handle(request, null);
+    }
+
+    // @param deadline null = no time limit
+    Response handle(Request request, Deadline deadline) {
+        Response response;
+        if (request.getBatch() != null) {
+            response = BatchExecutor.execute(request, command -> execute(command, deadline));
+        } else {
+            response = execute(request, deadline);
+            response.setCorrelationId(request.getCorrelationId());
+        }
+        if (response.getVersion() == 0) response.setVersion(manager.getVersion());
+        return response;
+    }
+
+    private Response execute(Request request, Deadline deadline) {
+        String command = request.getCommandName() == null ? "" : request.getCommandName();
+        String arg = request.getCommandStringArgument() == null ? "" : request.getCommandStringArgument().trim();
+
+        // checked for every command, so the rest of a batch gives up too
+        if ((deadline != null && deadline.passed()) || Thread.currentThread().isInterrupted()) {
+            return timedOut();
+        }
+        Cancellation cancel = deadline == null ? Cancellation.NONE : deadline;
+
+        try {
+            if (request.getCursor() != 0) return nextPage(request);
+
+            switch (command) {
+                case "help":
+                    return message(help());
+                case "info":
+                    return message("Type: Stack<HumanBeing>\n"
+                            + "Initialization date: " + manager.getInitializationDate() + "\n"
+                            + "Number of elements: " + manager.size());
+                case "show":
+                    return list(request, "Collection elements: ", manager.getElements());
+                case "add":
+                    if (request.getObjectArgument() == null) return message("This command needs an element.");
+                    add(request.getObjectArgument());
+                    return message("Element added.");
+                case "add_if_min":
+                    if (request.getObjectArgument() == null) return message("This command needs an element.");
+                    return message(addIfMin(request.getObjectArgument())
+                            ? "Element added."
+                            : "Element was not added: it is not smaller than the minimum.");
+                case "update": {
+                    if (request.getObjectArgument() == null) return message("This command needs an element.");
+                    int id = Integer.parseInt(arg);
+                    return message(update(id, request.getObjectArgument())
+                            ? "Element with id=" + id + " updated."
+                            : "No element with id=" + id + ".");
+                }
+                case "remove_by_id": {
+                    int id = Integer.parseInt(arg);
+                    return message(manager.removeById(id)
+                            ? "Element with id=" + id + " removed."
+                            : "No element with id=" + id + ".");
+                }
+                case "clear":
+                    manager.clear();
+                    return message("Collection cleared.");
+                case "shuffle":
+                    manager.shuffle();
+                    return message("Collection shuffled.");
+                case "remove_greater":
+                    if (request.getObjectArgument() == null) return message("This command needs an element.");
+                    return message("Removed elements: " + manager.removeGreater(ModelMapper.toModel(request.getObjectArgument()), cancel));
+                case "print_descending":
+                    return list(request, "Elements in descending order: ", manager.getDescending());
+                case "filter_by_impact_speed":
+                    return list(request, "Elements with impactSpeed " + arg + ": ",
+                            manager.filterByImpactSpeed(Double.parseDouble(arg)));
+                case "query":
+                    return list(request, "Query results: ", manager.query(compile(arg), cancel));
+                case "remove_all_by_minutes_of_waiting": {
+                    Integer minutes = arg.isEmpty() ? null : Integer.parseInt(arg);
+                    return message("Removed elements: " + manager.removeAllByMinutesOfWaiting(minutes, cancel));
+                }
+                case "sync":
+                    return sync(arg.isEmpty() ? -1 : Long.parseLong(arg));
+                case "save":
+                    return message("The 'save' command is only available directly on the server.");
+                case "execute_script":
+                case "exit":
+                case "fields":
+                    return message("The '" + command + "' command is handled by the client.");
+                default:
+                    return message("Unknown command. Type 'help'.");
+            }
+        } catch (NumberFormatException e) {
+            return message("Invalid argument for " + command + ": '" + arg + "'");
+        } catch (CancellationException e) {
+            return timedOut(); // the scan gave up before changing anything
+        } catch (RuntimeException e) {
+            return message("Error: " + e.getMessage());
+        }
+    }
+
+    private void add(common.model.HumanBeing hb) {
+        manager.addHumanBeing(
+                hb.getName(),
+                ModelMapper.toModel(hb.getCoordinates()),
+                hb.getRealHero(),
+                hb.getHasToothpick(),
+                hb.getImpactSpeed(),
+                hb.getSoundtrackName(),
+                hb.getMinutesOfWaiting(),
+                ModelMapper.toModel(hb.getMood()),
+                ModelMapper.toModel(hb.getCar())
+        );
+    }
+
+    private boolean addIfMin(common.model.HumanBeing hb) {
+        return manager.addHumanBeingIfMin(
+                hb.getName(),
+                ModelMapper.toModel(hb.getCoordinates()),
+                hb.getRealHero(),
+                hb.getHasToothpick(),
+                hb.getImpactSpeed(),
+                hb.getSoundtrackName(),
+                hb.getMinutesOfWaiting(),
+                ModelMapper.toModel(hb.getMood()),
+                ModelMapper.toModel(hb.getCar())
+        );
+    }
+
+    private boolean update(int id, common.model.HumanBeing hb) {
+        return manager.updateById(
+                id,
+                hb.getName(),
+                ModelMapper.toModel(hb.getCoordinates()),
+                hb.getRealHero(),
+                hb.getHasToothpick(),
+                hb.getImpactSpeed(),
+                hb.getSoundtrackName(),
+                hb.getMinutesOfWaiting(),
+                ModelMapper.toModel(hb.getMood()),
+                ModelMapper.toModel(hb.getCar())
+        );
+    }
+
+    // @throws IllegalArgumentException if the query is not valid
+    private Query compile(String text) {
+        Query query = queries.get(text);
+        if (query == null) {
+            query = QueryParser.parse(text);
+            queries.put(text, query);
+        }
+        return query;
+    }
+
+    private static String help() {
+        StringBuilder sb = new StringBuilder("Available commands:");
+        for (Map.Entry<String, String> e : COMMANDS.entrySet()) {
+            sb.append('\n').append(e.getKey()).append(" : ").append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+    private Response list(Request request, String title, List<model.HumanBeing> elements) {
+        if (elements.isEmpty()) return message(title + "none");
+        if (request.getPageSize() <= 0) return elements(title + elements.size(), elements, request.getFields());
+        return page(title, elements, 0, request.getPageSize(), request.getFields());
+    }
+
+    private Response sync(long clientVersion) {
+        ChangeLog.Delta delta = manager.changesSince(clientVersion);
+        Response response = new Response(
+                (delta.isFull() ? "Full copy: " : "Changed: ") + delta.getUpserted().size()
+                        + ", removed: " + delta.getRemoved().length,
+                ModelMapper.toWire(delta.getUpserted()));
+        response.setVersion(delta.getVersion()); // the version the delta leads to, not a later one
+        response.setRemovedIds(delta.getRemoved());
+        response.setFullSync(delta.isFull());
+        return response;
+    }
+
+    private Response nextPage(Request request) {
+        CursorRegistry.Cursor cursor = cursors.get(request.getCursor());
+        if (cursor == null) return message("This listing has expired. Run the command again.");
+        int pageSize = request.getPageSize() > 0 ? request.getPageSize() : cursor.getElements().size();
+        return page(cursor.getTitle(), cursor.getElements(), cursor.getOffset(), pageSize, request.getFields());
+    }
+
+    // Only the elements of this page are converted and sent; the cursor points at the rest.
+    private Response page(String title, List<model.HumanBeing> elements, int offset, int pageSize, int fields) {
+        int end = (int) Math.min(elements.size(), (long) offset + pageSize);
+        Response response = elements(title + elements.size(), elements.subList(offset, end), fields);
+        if (end < elements.size()) response.setCursor(cursors.open(title, elements, end));
+        return response;
+    }
+
+    // Whole elements, or Rows if the request asked for some fields only
+    private static Response elements(String message, List<model.HumanBeing> elements, int fields) {
+        if (fields == 0) return new Response(message, ModelMapper.toWire(elements));
+        Response response = new Response(message, null);
+        response.setRows(ModelMapper.toRows(elements, fields));
+        return response;
+    }
+
+    private static Response message(String text) {
+        return new Response(text, null);
+    }
+
+    private static Response timedOut() {
+        return message("Request timed out: the server is busy, try again later.");
+    }
+}
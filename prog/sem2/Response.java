@@ -1,26 +1,98 @@
-package common.network;
-
-import common.model.HumanBeing;
-
-import java.io.Serializable;
-import java.util.List;
-
-public class Response implements Serializable {
-    private static final long serialVersionUID = 1L;
-
-    private final String message;
-    private final List<HumanBeing> collection; // Used for "show" command
-
-    public Response(String message, List<HumanBeing> collection) {
-        this.message = message;
-        this.collection = collection;
-    }
-
-    public String getMessage() {
-        return message;
-    }
-
-    public List<HumanBeing> getCollection() {
-        return collection;
-    }
+package common.network;
+
+import common.model.HumanBeing;
+import common.model.Row;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Response implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String message;
+    private final ArrayList<HumanBeing> collection; // Used for "show" command
+    private ArrayList<Row> rows; // instead of collection when the request asked for some fields only
+    private final ArrayList<Response> results; // Used for a batch: one result per command
+    private int correlationId; // copied from the request it answers (the client restores it from the fragment header)
+    private long cursor; // a paged listing: pass it back in a Request for the next page, 0 = last page
+    private long version; // version of the collection when the reply was built
+    // "sync" replies: the client drops these ids (and the ids in collection), then pushes collection
+    private int[] removedIds;
+    private boolean fullSync; // "sync" replies: collection replaces the client's copy entirely
+
+    public Response(String message, List<HumanBeing> collection) {
+        this.message = message;
+        this.collection = collection == null ? null : new ArrayList<>(collection);
+        this.results = null;
+    }
+
+    public Response(List<Response> results) {
+        this.message = "Batch executed: " + results.size() + " commands";
+        this.collection = null;
+        this.results = new ArrayList<>(results);
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public List<HumanBeing> getCollection() {
+        return collection;
+    }
+
+    // null unless the request had a field mask
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<Row> rows) {
+        this.rows = rows == null ? null : new ArrayList<>(rows);
+    }
+
+    // null unless this answers a batch
+    public List<Response> getResults() {
+        return results;
+    }
+
+    public int getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(int correlationId) {
+        this.correlationId = correlationId;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    // null unless this answers "sync"
+    public int[] getRemovedIds() {
+        return removedIds;
+    }
+
+    public void setRemovedIds(int[] removedIds) {
+        this.removedIds = removedIds;
+    }
+
+    public boolean isFullSync() {
+        return fullSync;
+    }
+
+    public void setFullSync(boolean fullSync) {
+        this.fullSync = fullSync;
+    }
 }
\ No newline at end of file
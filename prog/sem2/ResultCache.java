@@ -0,0 +1,120 @@
+package server;
+
+import common.network.Request;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Encoded (and compressed) replies of read-only commands, so asking again between two changes
+ * of the collection costs neither running the command nor serializing the answer.
+ * Keyed by codec, command name, argument and field mask; every entry belongs to the collection version
+ * (CollectionManager.getVersion) it was built at, and a new version drops them all.
+ * Bounded by bytes, least recently used first. Thread-safe.
+ *
+ * The replies are shared by all clients, so they are stored with correlation id 0;
+ * clients take the id from the fragment header.
+ */
+public class ResultCache {
+
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static final Set<String> CACHEABLE = Set.of(
+            "help", "info", "show", "print_descending", "filter_by_impact_speed", "query", "sync");
+
+    private final long maxBytes;
+    private long bytes;
+    private long generation = Long.MIN_VALUE;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public ResultCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public ResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static class Entry {
+        private final ByteBuffer message;
+        private final int flags;
+
+        Entry(ByteBuffer message, int flags) {
+            this.message = message;
+            this.flags = flags;
+        }
+
+        public ByteBuffer getMessage() {
+            return message.duplicate();
+        }
+
+        public int getFlags() {
+            return flags;
+        }
+    }
+
+    // @return the key for a request whose reply can be cached, or null
+    public static Key keyFor(Object codec, Request request) {
+        if (request.getBatch() != null || request.getPageSize() > 0 || request.getCursor() != 0) return null;
+        if (!CACHEABLE.contains(request.getCommandName())) return null;
+        String arg = request.getCommandStringArgument() == null ? "" : request.getCommandStringArgument().trim();
+        return new Key(codec.getClass(), request.getCommandName(), arg, request.getFields());
+    }
+
+    // @return the reply built at this generation, or null
+    public synchronized Entry get(Key key, long generation) {
+        if (generation != this.generation) return null;
+        return entries.get(key);
+    }
+
+    // message is not copied and must not be changed afterwards
+    public synchronized void put(Key key, long generation, ByteBuffer message, int flags) {
+        if (generation < this.generation || message.remaining() > maxBytes) return; // built from an older state
+        if (generation > this.generation) {
+            entries.clear();
+            bytes = 0;
+            this.generation = generation;
+        }
+
+        Entry old = entries.put(key, new Entry(message.asReadOnlyBuffer(), flags));
+        if (old != null) bytes -= old.message.remaining();
+        bytes += message.remaining();
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            bytes -= it.next().message.remaining();
+            it.remove();
+        }
+    }
+
+    public static final class Key {
+        private final Class<?> codec; // the same reply is encoded differently by each codec
+        private final String command;
+        private final String argument;
+        private final int fields;
+
+        Key(Class<?> codec, String command, String argument, int fields) {
+            this.codec = codec;
+            this.command = command;
+            this.argument = argument;
+            this.fields = fields;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return codec == key.codec && command.equals(key.command) && argument.equals(key.argument)
+                    && fields == key.fields;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(codec, command, argument, fields);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package common.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Some of the fields of one HumanBeing: what list commands send when the request asks for a field mask.
+ * Fields outside the mask are null (and are not sent by the binary codec).
+ */
+public class Row implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int fields; // Field mask
+    private final Integer id;
+    private final String name;
+    private final Coordinates coordinates;
+    private final LocalDate creationDate;
+    private final Boolean realHero;
+    private final Boolean hasToothpick;
+    private final Double impactSpeed;
+    private final String soundtrackName;
+    private final Integer minutesOfWaiting;
+    private final Mood mood;
+    private final Car car;
+
+    // Values of fields outside the mask are dropped.
+    public Row(
+            int fields,
+            Integer id,
+            String name,
+            Coordinates coordinates,
+            LocalDate creationDate,
+            Boolean realHero,
+            Boolean hasToothpick,
+            Double impactSpeed,
+            String soundtrackName,
+            Integer minutesOfWaiting,
+            Mood mood,
+            Car car
+    ) {
+        this.fields = fields & Field.ALL;
+        this.id = Field.ID.in(fields) ? id : null;
+        this.name = Field.NAME.in(fields) ? name : null;
+        this.coordinates = Field.COORDINATES.in(fields) ? coordinates : null;
+        this.creationDate = Field.CREATION_DATE.in(fields) ? creationDate : null;
+        this.realHero = Field.REAL_HERO.in(fields) ? realHero : null;
+        this.hasToothpick = Field.HAS_TOOTHPICK.in(fields) ? hasToothpick : null;
+        this.impactSpeed = Field.IMPACT_SPEED.in(fields) ? impactSpeed : null;
+        this.soundtrackName = Field.SOUNDTRACK_NAME.in(fields) ? soundtrackName : null;
+        this.minutesOfWaiting = Field.MINUTES_OF_WAITING.in(fields) ? minutesOfWaiting : null;
+        this.mood = Field.MOOD.in(fields) ? mood : null;
+        this.car = Field.CAR.in(fields) ? car : null;
+    }
+
+    public static Row of(HumanBeing hb, int fields) {
+        return new Row(fields, hb.getId(), hb.getName(), hb.getCoordinates(), hb.getCreationDate(),
+                hb.getRealHero(), hb.getHasToothpick(), hb.getImpactSpeed(), hb.getSoundtrackName(),
+                hb.getMinutesOfWaiting(), hb.getMood(), hb.getCar());
+    }
+
+    public int getFields() {
+        return fields;
+    }
+
+    public boolean has(Field field) {
+        return field.in(fields);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Coordinates getCoordinates() {
+        return coordinates;
+    }
+
+    public LocalDate getCreationDate() {
+        return creationDate;
+    }
+
+    public Boolean getRealHero() {
+        return realHero;
+    }
+
+    public Boolean getHasToothpick() {
+        return hasToothpick;
+    }
+
+    public Double getImpactSpeed() {
+        return impactSpeed;
+    }
+
+    public String getSoundtrackName() {
+        return soundtrackName;
+    }
+
+    public Integer getMinutesOfWaiting() {
+        return minutesOfWaiting;
+    }
+
+    public Mood getMood() {
+        return mood;
+    }
+
+    public Car getCar() {
+        return car;
+    }
+
+    // Same format as HumanBeing.toString, with only the fields in the mask.
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("HumanBeing{");
+        for (Field field : Field.values()) {
+            if (!has(field)) continue;
+            if (sb.length() > "HumanBeing{".length()) sb.append(", ");
+            sb.append(field.getFieldName()).append('=');
+            switch (field) {
+                case ID: sb.append(id); break;
+                case NAME: sb.append('\'').append(name).append('\''); break;
+                case COORDINATES: sb.append(coordinates); break;
+                case CREATION_DATE: sb.append(creationDate); break;
+                case REAL_HERO: sb.append(realHero); break;
+                case HAS_TOOTHPICK: sb.append(hasToothpick); break;
+                case IMPACT_SPEED: sb.append(impactSpeed); break;
+                case SOUNDTRACK_NAME: sb.append('\'').append(soundtrackName).append('\''); break;
+                case MINUTES_OF_WAITING: sb.append(minutesOfWaiting); break;
+                case MOOD: sb.append(mood); break;
+                case CAR: sb.append(car); break;
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
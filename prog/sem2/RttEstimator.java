@@ -0,0 +1,45 @@
+package client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round-trip time estimate and retransmission timeout, computed the way TCP does it (RFC 6298):
+ * smoothed RTT and RTT variance from samples, RTO = SRTT + 4 * RTTVAR.
+ * Only requests that were not retransmitted give samples (Karn's rule).
+ * The backoff is kept per request (UDPClient doubles its copy of the RTO on every retransmission),
+ * so a few unlucky requests do not slow down the ones after them. Thread-safe.
+ */
+public class RttEstimator {
+
+    public static final long INITIAL_RTO = TimeUnit.MILLISECONDS.toNanos(200);
+    public static final long MIN_RTO = TimeUnit.MILLISECONDS.toNanos(20);
+    public static final long MAX_RTO = TimeUnit.SECONDS.toNanos(2);
+
+    private long srtt = -1; // -1 = no sample yet
+    private long rttvar;
+    private long rto = INITIAL_RTO;
+
+    public synchronized void sample(long rtt) {
+        if (srtt < 0) {
+            srtt = rtt;
+            rttvar = rtt / 2;
+        } else {
+            rttvar = (3 * rttvar + Math.abs(srtt - rtt)) / 4;
+            srtt = (7 * srtt + rtt) / 8;
+        }
+        rto = clamp(srtt + 4 * rttvar);
+    }
+
+    public synchronized long getRto() {
+        return rto;
+    }
+
+    // -1 if there is no sample yet
+    public synchronized long getSrtt() {
+        return srtt;
+    }
+
+    public static long clamp(long rto) {
+        return Math.max(MIN_RTO, Math.min(MAX_RTO, rto));
+    }
+}
@@ -1,22 +1,150 @@
-package common.network;
-
-import java.io.*;
-
-public class SerializationUtils {
-
-    // Turns an Object into a byte[]
-    public static byte[] serialize(Object obj) throws IOException {
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(bos);
-        oos.writeObject(obj);
-        oos.flush();
-        return bos.toByteArray();
-    }
-
-    // Turns a byte[] back into an Object
-    public static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
-        ByteArrayInputStream bis = new ByteArrayInputStream(data);
-        ObjectInputStream ois = new ObjectInputStream(bis);
-        return ois.readObject();
-    }
+package common.network;
+
+import util.StringDictionary;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Set;
+
+public class SerializationUtils {
+
+    // Request > batch > Request > HumanBeing > Coordinates is 9 levels with the lists; batches nest 4 deep at most
+    private static final int MAX_DEPTH = 24;
+
+    // Classes a message may contain besides common.network and common.model; readObject gets data from any host
+    private static final Set<Class<?>> ALLOWED = Set.of(
+            ArrayList.class, LocalDate.class, Enum.class, Number.class, Integer.class, Long.class, Double.class, Float.class,
+            Short.class, Byte.class, Character.class, Boolean.class);
+    // LocalDate travels in this replacement form, which the filter sees first
+    private static final String JAVA_TIME_SER = "java.time.Ser";
+
+    // Turns an Object into a byte[]
+    public static byte[] serialize(Object obj) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new DictionaryObjectOutputStream(bos);
+        oos.writeObject(obj);
+        oos.flush();
+        return bos.toByteArray();
+    }
+
+    // Writes an Object at the buffer's position, without an intermediate byte[]
+    // @throws java.nio.BufferOverflowException if it does not fit
+    public static void serialize(Object obj, ByteBuffer buffer) throws IOException {
+        ObjectOutputStream oos = new DictionaryObjectOutputStream(new ByteBufferOutputStream(buffer));
+        oos.writeObject(obj);
+        oos.flush();
+    }
+
+    // Turns a byte[] back into an Object
+    public static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        ByteArrayInputStream bis = new ByteArrayInputStream(data);
+        ObjectInputStream ois = new ObjectInputStream(bis);
+        ois.setObjectInputFilter(filter(data.length));
+        return ois.readObject();
+    }
+
+    // Reads an Object from the buffer's position up to its limit
+    public static Object deserialize(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+        int length = buffer.remaining();
+        ObjectInputStream ois = new ObjectInputStream(new ByteBufferInputStream(buffer));
+        ois.setObjectInputFilter(filter(length));
+        return ois.readObject();
+    }
+
+    /**
+     * Allows only the classes messages are made of, and limits sized by the message itself:
+     * every array element and every reference takes at least one byte of the stream, so a message
+     * cannot make the reader allocate more than it sent. The server receives at most
+     * UDPServer.MAX_REQUEST_FRAGMENTS fragments per request, which bounds all of these.
+     * A rejected stream fails with InvalidClassException.
+     */
+    static ObjectInputFilter filter(int length) {
+        return info -> {
+            if (info.depth() > MAX_DEPTH || info.references() > length
+                    || info.streamBytes() > length || info.arrayLength() > length) {
+                return ObjectInputFilter.Status.REJECTED;
+            }
+
+            Class<?> type = info.serialClass();
+            if (type == null) return ObjectInputFilter.Status.UNDECIDED; // only a limit check
+            if (type.isArray()) {
+                // primitive arrays (Response.removedIds) and the Object[] behind an ArrayList
+                Class<?> component = type.getComponentType();
+                return component.isPrimitive() || component == Object.class
+                        ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+            }
+            String pkg = type.getPackageName();
+            if (pkg.equals("common.network") || pkg.equals("common.model")
+                    || ALLOWED.contains(type) || type.getName().equals(JAVA_TIME_SER)) {
+                return ObjectInputFilter.Status.ALLOWED;
+            }
+            return ObjectInputFilter.Status.REJECTED;
+        };
+    }
+
+    private static class ByteBufferOutputStream extends OutputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.put(b, off, len);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * Replaces every string with the dictionary instance of its value,
+     * so a repeated value (e.g. soundtrackName) is sent once and then as a back-reference.
+     * The receiving side gets one shared String per distinct value.
+     */
+    private static class DictionaryObjectOutputStream extends ObjectOutputStream {
+        private final StringDictionary dictionary = new StringDictionary();
+
+        DictionaryObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            return obj instanceof String ? dictionary.intern((String) obj) : obj;
+        }
+    }
 }
\ No newline at end of file
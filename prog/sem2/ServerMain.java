@@ -0,0 +1,71 @@
+package server;
+
+import manager.CollectionManager;
+import manager.ElementStore;
+import manager.SnapshotFormat;
+
+import java.io.IOException;
+import java.util.Scanner;
+
+/**
+ * Starts the server: java server.ServerMain <file_name>
+ * Options: -Dport=8080 -Dworkers=<cpus> -Dqueue=1024 -Dmode=pool|virtual -Dtimeout=5000 (ms) -Djournal=false
+ * -Dstore=indexed|columnar
+ * mode=pool runs requests on 'workers' platform threads; mode=virtual starts a virtual thread per request
+ * (at most workers + queue at once).
+ * store=columnar keeps the elements in primitive columns, which takes far less memory for large collections.
+ * journal=true appends every change to <file_name>.journal, so 'save' only syncs it and a crash loses nothing saved.
+ * The console accepts 'save' and 'exit'; Ctrl+C also shuts down gracefully and saves.
+ */
+public class ServerMain {
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("No file name provided!");
+            return;
+        }
+
+        int port = Integer.getInteger("port", 8080);
+        int workers = Integer.getInteger("workers", Runtime.getRuntime().availableProcessors());
+        int queue = Integer.getInteger("queue", UDPServer.DEFAULT_QUEUE_CAPACITY);
+        String mode = System.getProperty("mode", "pool");
+        long timeout = Long.getLong("timeout", UDPServer.DEFAULT_REQUEST_TIMEOUT_MILLIS);
+
+        try {
+            //  Create CollectionManager and load file
+            ElementStore store = ElementStore.create(System.getProperty("store", "indexed"));
+            CollectionManager cm = new CollectionManager(args[0], SnapshotFormat.forFile(args[0]), store);
+            cm.loadFromFile();
+
+            if (Boolean.getBoolean("journal")) {
+                cm.enableJournal(CollectionManager.DEFAULT_COMPACT_THRESHOLD);
+            }
+
+            RequestExecutor executor = RequestExecutor.create(mode, workers, queue);
+            UDPServer server = new UDPServer(port, new RequestHandler(cm), cm, executor, queue, timeout);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::close, "server-shutdown"));
+            System.out.println("Server started on port " + port + " with " + executor + ".");
+
+            Scanner scanner = new Scanner(System.in);
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine().trim();
+                if (line.equals("save")) {
+                    cm.saveToFile();
+                } else if (line.equals("exit")) {
+                    server.close();
+                    return;
+                } else if (!line.isEmpty()) {
+                    System.out.println("Server commands: save, exit");
+                }
+            }
+
+            // No console (e.g. started in the background): run until the process is stopped
+            server.awaitTermination();
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error starting server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
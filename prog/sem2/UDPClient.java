@@ -1,61 +1,354 @@
-package client;
-
-import common.network.Request;
-import common.network.Response;
-import common.network.SerializationUtils;
-
-import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.SocketAddress;
-import java.nio.ByteBuffer;
-import java.nio.channels.DatagramChannel;
-
-public class UDPClient {
-    private final DatagramChannel channel;
-    private final SocketAddress serverAddress;
-
-    public UDPClient(String host, int port) throws IOException {
-        this.serverAddress = new InetSocketAddress(host, port);
-
-        //  Use network channels in non-blocking mode
-        this.channel = DatagramChannel.open();
-        this.channel.configureBlocking(false);
-    }
-
-    public Response sendAndReceive(Request request) {
-        try {
-            // 1. Serialize the Request object into bytes
-            byte[] requestData = SerializationUtils.serialize(request);
-            ByteBuffer sendBuffer = ByteBuffer.wrap(requestData);
-
-            // 2. Send the bytes to the server
-            channel.send(sendBuffer, serverAddress);
-
-            // 3. Prepare a buffer to receive the server's answer
-            ByteBuffer receiveBuffer = ByteBuffer.allocate(65535);
-            SocketAddress receivedFrom = null;
-
-            // Handle server unavailability (Timeout)
-            // Because it is non-blocking, we loop for a maximum of 3 seconds waiting for a reply
-            long startTime = System.currentTimeMillis();
-            while (receivedFrom == null && (System.currentTimeMillis() - startTime) < 3000) {
-                receivedFrom = channel.receive(receiveBuffer);
-                if (receivedFrom == null) {
-                    Thread.sleep(50); // Sleep for 50ms so we don't freeze the CPU
-                }
-            }
-
-            if (receivedFrom == null) {
-                System.out.println("Server is currently unavailable. Please try again later.");
-                return null;
-            }
-
-            // 5. Deserialize the received bytes back into a Response object
-            return (Response) SerializationUtils.deserialize(receiveBuffer.array());
-
-        } catch (Exception e) {
-            System.out.println("Network Error: " + e.getMessage());
-            return null;
-        }
-    }
+package client;
+
+import common.network.BufferPool;
+import common.network.Compression;
+import common.network.Fragment;
+import common.network.JavaSerializationCodec;
+import common.network.MessageCodec;
+import common.network.Request;
+import common.network.Reassembler;
+import common.network.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * UDP connection to the server.
+ * Requests can be pipelined: sendAsync returns at once and up to `window` requests may be in flight.
+ * Every request gets a correlation id, which is also the message id of its fragments;
+ * one receiver thread reassembles replies and completes the matching future.
+ * A request without any reply is retransmitted after an adaptive timeout (see RttEstimator)
+ * with exponential backoff; the server answers duplicates from its reply cache instead of executing them again.
+ */
+public class UDPClient implements Closeable {
+    public static final int DEFAULT_WINDOW = 32;
+
+    // give up after this long without any progress
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SocketAddress serverAddress;
+    private final MessageCodec codec;
+    private final BufferPool buffers;
+    private final Semaphore window;
+    // random start, so ids of a previous client that had the same port are not mistaken for ours
+    private final AtomicInteger nextCorrelationId = new AtomicInteger(ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE / 2));
+    private final RttEstimator rtt = new RttEstimator();
+    private final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+    private final Thread receiver;
+    // set when the receiver thread exits: nothing would complete new requests after that
+    private volatile boolean stopped;
+
+    // A request waiting for its reply. Its fields are only touched by the receiver thread once registered.
+    private static class Pending {
+        final int id;
+        final ByteBuffer message; // the encoded request, kept for resends
+        // the message goes back to the pool when both the first send and the request are done, whichever is last
+        final AtomicInteger holds = new AtomicInteger(2);
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        final long sentAt = System.nanoTime();
+        boolean retransmitted; // no RTT sample then, the reply may answer either copy
+        Reassembler reply;
+        long deadline;
+        long rto; // current timeout, doubled on every expiry
+        long timerAt; // retransmit the request (no reply yet) or NACK the missing fragments
+
+        Pending(int id, ByteBuffer message, long rto) {
+            this.id = id;
+            this.message = message;
+            this.rto = rto;
+            this.deadline = sentAt + TIMEOUT_NANOS;
+            this.timerAt = sentAt + rto;
+        }
+    }
+
+    public UDPClient(String host, int port) throws IOException {
+        this(host, port, new JavaSerializationCodec());
+    }
+
+    public UDPClient(String host, int port, MessageCodec codec) throws IOException {
+        this(host, port, codec, DEFAULT_WINDOW);
+    }
+
+    public UDPClient(String host, int port, MessageCodec codec, int window) throws IOException {
+        this.serverAddress = new InetSocketAddress(host, port);
+        this.codec = codec;
+        this.window = new Semaphore(window);
+        // one message buffer per request in flight, plus datagram buffers for sending
+        this.buffers = new BufferPool(window + 4);
+
+        //  Use network channels in non-blocking mode
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        // room for a burst of reply fragments
+        this.channel.setOption(StandardSocketOptions.SO_RCVBUF, 4 * 1024 * 1024);
+
+        // The selector wakes the receiver up as soon as a reply arrives
+        this.selector = Selector.open();
+        this.channel.register(selector, SelectionKey.OP_READ);
+
+        this.receiver = new Thread(this::receiveLoop, "udp-client-receiver");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    // Sends the request and waits for the reply; prints the problem and returns null on failure.
+    public Response sendAndReceive(Request request) {
+        try {
+            return sendAsync(request).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                System.out.println("Server is currently unavailable. Please try again later.");
+            } else if (cause instanceof BufferOverflowException) {
+                System.out.println("Network Error: request is too large to send");
+            } else {
+                System.out.println("Network Error: " + cause.getMessage());
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Network Error: interrupted");
+            return null;
+        }
+    }
+
+    /**
+     * Sends the request without waiting for the reply.
+     * Blocks only while the in-flight window is full.
+     * The future fails with TimeoutException if the server does not answer.
+     * It is completed on the receiver thread, so non-async callbacks must not block.
+     */
+    public CompletableFuture<Response> sendAsync(Request request) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        int id = nextCorrelationId.getAndIncrement();
+        request.setCorrelationId(id);
+        ByteBuffer message = buffers.acquire();
+        try {
+            // Encode the Request object straight into its message buffer
+            codec.encode(request, message);
+            message.flip();
+        } catch (Exception e) {
+            buffers.release(message);
+            window.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // register before sending, so even an immediate reply finds its future
+        Pending p = new Pending(id, message, rtt.getRto());
+        pending.put(id, p);
+        if (stopped) {
+            complete(p, null, new IOException("Client receiver has stopped"));
+            release(p);
+            return p.future;
+        }
+        selector.wakeup(); // the receiver recomputes its timers
+
+        ByteBuffer datagram = buffers.acquire();
+        try {
+            sendRequest(datagram, p);
+        } catch (Exception e) {
+            complete(p, null, e);
+        } finally {
+            buffers.release(datagram);
+            // the reply may already have completed the request while we were still sending from the message
+            release(p);
+        }
+        return p.future;
+    }
+
+    /**
+     * Size of the request once encoded, so callers can pack several into one batch.
+     * @return -1 if it cannot be encoded into one message
+     */
+    public int encodedSize(Request request) {
+        ByteBuffer buffer = buffers.acquire();
+        try {
+            codec.encode(request, buffer);
+            return buffer.position();
+        } catch (BufferOverflowException | IOException e) {
+            return -1;
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    /** Largest encoded request that can be sent. */
+    public int getMaxMessageSize() {
+        return buffers.getBufferSize();
+    }
+
+    @Override
+    public void close() throws IOException {
+        selector.close();
+        channel.close();
+        for (Pending p : pending.values()) complete(p, null, new IOException("Client closed"));
+    }
+
+    private void receiveLoop() {
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(BufferPool.MAX_DATAGRAM_SIZE);
+        ByteBuffer datagram = ByteBuffer.allocateDirect(BufferPool.MAX_DATAGRAM_SIZE);
+
+        try {
+            while (channel.isOpen()) {
+                try {
+                    long wait = runTimers(datagram);
+                    // select(0) means "wait until woken up", used when nothing is in flight
+                    selector.select(wait < 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+                    selector.selectedKeys().clear();
+
+                    // read every datagram that is already waiting
+                    while (true) {
+                        receiveBuffer.clear();
+                        if (channel.receive(receiveBuffer) == null) break;
+                        receiveBuffer.flip();
+                        try {
+                            dispatch(Fragment.read(receiveBuffer), datagram);
+                        } catch (RuntimeException e) {
+                            // one bad datagram must not stop the receiver
+                            System.out.println("Network Error: bad datagram: " + e);
+                        }
+                    }
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    if (!channel.isOpen()) break;
+                    System.out.println("Network Error: " + e.getMessage());
+                }
+            }
+        } finally {
+            // nobody is left to complete the requests in flight, so fail them instead of letting callers wait forever
+            stopped = true;
+            for (Pending p : pending.values()) complete(p, null, new IOException("Client receiver has stopped"));
+        }
+    }
+
+    private void dispatch(Fragment fragment, ByteBuffer datagram) throws IOException {
+        // skip garbage and late replies to requests that are already finished
+        if (fragment == null) return;
+        Pending p = pending.get(fragment.getMessageId());
+        if (p == null) return;
+
+        if (fragment.isNack()) {
+            // the server lost part of a multi-fragment request
+            for (int index : fragment.getMissing()) {
+                if (index >= 0 && index < Fragment.count(p.message.remaining())) sendFragment(datagram, p.id, p.message, index);
+            }
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (p.reply == null) {
+            p.reply = new Reassembler(fragment);
+            if (!p.retransmitted) rtt.sample(now - p.sentAt);
+        }
+        if (p.reply.accept(fragment)) {
+            // the timeout counts from the last progress, so long transfers are not cut off
+            p.rto = rtt.getRto();
+            p.deadline = now + TIMEOUT_NANOS;
+            p.timerAt = now + p.rto;
+        }
+
+        if (p.reply.isComplete()) {
+            Response response = null;
+            Exception error = null;
+            try {
+                // Decode the reassembled bytes back into a Response object
+                ByteBuffer body = p.reply.message();
+                if ((p.reply.getFlags() & Fragment.COMPRESSED) != 0) body = Compression.decompress(body);
+                response = (Response) codec.decode(body);
+                response.setCorrelationId(p.id); // shared cached replies on the server carry 0
+            } catch (Exception e) {
+                error = e;
+            }
+            complete(p, response, error);
+        }
+    }
+
+    /**
+     * Fails timed out requests, retransmits unanswered ones and sends NACKs for stalled replies.
+     * @return nanoseconds until the next timer, -1 if nothing is in flight
+     */
+    private long runTimers(ByteBuffer datagram) throws IOException {
+        long now = System.nanoTime();
+        long next = -1;
+
+        for (Pending p : pending.values()) {
+            if (now - p.deadline >= 0) {
+                complete(p, null, new TimeoutException("No reply to request " + p.id));
+                continue;
+            }
+            if (now - p.timerAt >= 0) {
+                if (p.reply == null) {
+                    // the request or the whole reply was lost (or the server is just slow): send it again
+                    sendRequest(datagram, p);
+                    p.retransmitted = true;
+                } else {
+                    // ask for exactly the fragments we are missing
+                    datagram.clear();
+                    Fragment.writeNack(datagram, p.id, p.reply.missing());
+                    datagram.flip();
+                    channel.send(datagram, serverAddress);
+                }
+                p.rto = RttEstimator.clamp(p.rto * 2);
+                p.timerAt = now + p.rto;
+            }
+
+            long due = Math.min(p.deadline, p.timerAt) - now;
+            if (next < 0 || due < next) next = due;
+        }
+        return next;
+    }
+
+    private void complete(Pending p, Response response, Throwable error) {
+        if (pending.remove(p.id, p)) {
+            release(p);
+            window.release();
+        }
+        if (error != null) p.future.completeExceptionally(error);
+        else p.future.complete(response);
+    }
+
+    private void release(Pending p) {
+        if (p.holds.decrementAndGet() == 0) buffers.release(p.message);
+    }
+
+    // Sends the whole request, one datagram per fragment
+    private void sendRequest(ByteBuffer datagram, Pending p) throws IOException {
+        for (int i = 0; i < Fragment.count(p.message.remaining()); i++) {
+            sendFragment(datagram, p.id, p.message, i);
+        }
+    }
+
+    private void sendFragment(ByteBuffer datagram, int messageId, ByteBuffer message, int index) throws IOException {
+        datagram.clear();
+        Fragment.write(datagram, 0, messageId, message, index);
+        datagram.flip();
+        channel.send(datagram, serverAddress);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,428 @@
+package server;
+
+import common.network.BufferPool;
+import common.network.Compression;
+import common.network.Fragment;
+import common.network.MessageCodec;
+import common.network.Reassembler;
+import common.network.Request;
+import common.network.Response;
+import manager.CollectionManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * UDP server for many clients at once.
+ *
+ * One I/O thread owns the channel: it reads datagrams, reassembles requests, answers duplicates and NACKs
+ * from the reply cache and sends every outgoing fragment. Complete requests are decoded and executed
+ * by a RequestExecutor (a platform thread pool or a virtual thread per request); workers hand encoded
+ * replies back through a bounded queue, so a slow command never blocks reading and a slow network
+ * never blocks a worker for long.
+ * When the executor is full a request is dropped and the client's retransmission tries again.
+ * Once a request's timeout (counted from arrival) has run out, its remaining commands are not started
+ * and are answered with an error; a command that is already running is not cut short (see Deadline).
+ * Replies to read-only commands are kept encoded in a ResultCache until the collection changes.
+ */
+public class UDPServer implements Closeable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 5000;
+
+    private static final long SWEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // a partly received request is NACKed after this long without progress and dropped after REASSEMBLY_TIMEOUT
+    private static final long NACK_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long REASSEMBLY_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    // clients encode a request into one pooled buffer, so it never takes more fragments than this
+    private static final int MAX_REQUEST_FRAGMENTS = Fragment.count(BufferPool.MAX_DATAGRAM_SIZE);
+    // partly received requests kept at once, each up to MAX_REQUEST_FRAGMENTS * PAYLOAD_SIZE bytes;
+    // a client needs one per request in flight (see UDPClient.DEFAULT_WINDOW)
+    private static final int MAX_PARTIAL_PER_CLIENT = 64;
+    private static final int MAX_PARTIAL = 1024;
+    private static final int ENCODE_BUFFER_SIZE = 64 * 1024;
+    // shared by all workers, however many threads they run on; bigger replies get a one-off buffer
+    private static final int MAX_POOLED_ENCODE_BUFFERS = 64;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final RequestHandler handler;
+    private final CollectionManager manager;
+    private final RequestExecutor workers;
+    private final long requestTimeoutNanos;
+    private final BlockingQueue<Outgoing> outgoing;
+    private final ReplyCache replies = new ReplyCache();
+    private final ResultCache results = new ResultCache();
+    private final Compression compression = new Compression();
+    private final Map<ReplyCache.Key, Partial> partial = new HashMap<>(); // I/O thread only
+    private final Map<SocketAddress, Integer> partialPerClient = new HashMap<>(); // I/O thread only
+    private final BufferPool encodeBuffers = new BufferPool(MAX_POOLED_ENCODE_BUFFERS, ENCODE_BUFFER_SIZE);
+    private volatile int largeReplySize = 2 * ENCODE_BUFFER_SIZE; // first try for replies the pooled buffers cannot hold
+    private final Thread ioThread;
+
+    private volatile boolean stopping;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // A reply (or the part of it a NACK asked for) waiting to be sent by the I/O thread.
+    private static class Outgoing {
+        final SocketAddress client;
+        final int messageId;
+        final int flags;
+        final ByteBuffer message;
+        final int[] indexes; // null = every fragment
+        int next;
+
+        Outgoing(SocketAddress client, int messageId, int flags, ByteBuffer message, int[] indexes) {
+            this.client = client;
+            this.messageId = messageId;
+            this.flags = flags;
+            this.message = message;
+            this.indexes = indexes;
+        }
+
+        int total() {
+            return indexes == null ? Fragment.count(message.remaining()) : indexes.length;
+        }
+
+        int index(int i) {
+            return indexes == null ? i : indexes[i];
+        }
+    }
+
+    private static class Partial {
+        final Reassembler reassembler;
+        long lastProgress = System.nanoTime();
+        long nackAt = lastProgress + NACK_DELAY_NANOS;
+
+        Partial(Reassembler reassembler) {
+            this.reassembler = reassembler;
+        }
+    }
+
+    public UDPServer(int port, RequestHandler handler, CollectionManager manager,
+                     int workerCount, int queueCapacity) throws IOException {
+        this(port, handler, manager, RequestExecutor.platformPool(workerCount, queueCapacity),
+                queueCapacity, DEFAULT_REQUEST_TIMEOUT_MILLIS);
+    }
+
+    public UDPServer(int port, RequestHandler handler, CollectionManager manager, RequestExecutor workers,
+                     int queueCapacity, long requestTimeoutMillis) throws IOException {
+        this.handler = handler;
+        this.manager = manager;
+        this.workers = workers;
+        this.requestTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(requestTimeoutMillis);
+
+        this.channel = DatagramChannel.open();
+        this.channel.configureBlocking(false);
+        this.channel.setOption(StandardSocketOptions.SO_RCVBUF, 4 * 1024 * 1024);
+        this.channel.bind(new InetSocketAddress(port));
+        this.selector = Selector.open();
+        this.key = channel.register(selector, SelectionKey.OP_READ);
+
+        this.outgoing = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.ioThread = new Thread(this::ioLoop, "udp-server-io");
+        this.ioThread.start();
+    }
+
+    /**
+     * Stops taking requests, lets the workers finish what they have, sends the last replies
+     * and saves the collection. Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        System.out.println("Shutting down the server...");
+
+        workers.shutdown(); // from now on new requests are rejected (see onRequest)
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.out.println("Some requests did not finish in time.");
+                workers.shutdownNow();
+            }
+
+            stopping = true;
+            selector.wakeup();
+            ioThread.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            selector.close();
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Error while closing the channel: " + e.getMessage());
+        }
+
+        manager.saveToFile();
+    }
+
+    // Blocks until the server has been closed.
+    public void awaitTermination() throws InterruptedException {
+        ioThread.join();
+    }
+
+    private void ioLoop() {
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(BufferPool.MAX_DATAGRAM_SIZE);
+        ByteBuffer datagram = ByteBuffer.allocateDirect(BufferPool.MAX_DATAGRAM_SIZE);
+        long nextSweep = System.nanoTime() + SWEEP_NANOS;
+
+        while (true) {
+            try {
+                flushOutgoing(datagram);
+                if (stopping && outgoing.isEmpty()) break;
+
+                selector.select(TimeUnit.NANOSECONDS.toMillis(SWEEP_NANOS));
+                selector.selectedKeys().clear();
+
+                receiveAll(receiveBuffer);
+
+                long now = System.nanoTime();
+                if (now - nextSweep >= 0) {
+                    sweep(datagram, now);
+                    nextSweep = now + SWEEP_NANOS;
+                }
+            } catch (ClosedSelectorException e) {
+                break;
+            } catch (IOException e) {
+                System.out.println("Network Error: " + e.getMessage());
+            } catch (RuntimeException e) {
+                // the I/O thread is the whole server: log and keep serving
+                System.out.println("Network Error: " + e);
+            }
+        }
+    }
+
+    private void receiveAll(ByteBuffer receiveBuffer) throws IOException {
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress client = channel.receive(receiveBuffer);
+            if (client == null) return;
+            receiveBuffer.flip();
+
+            try {
+                receive(client, receiveBuffer);
+            } catch (RuntimeException e) {
+                System.out.println("Dropped a bad datagram from " + client + ": " + e);
+            }
+        }
+    }
+
+    private void receive(SocketAddress client, ByteBuffer receiveBuffer) {
+        Fragment fragment = Fragment.read(receiveBuffer);
+        if (fragment == null) return;
+
+        if (fragment.isNack()) {
+            ReplyCache.Entry reply = replies.get(client, fragment.getMessageId());
+            if (reply != null) {
+                enqueue(new Outgoing(client, fragment.getMessageId(), reply.getFlags(),
+                        reply.getMessage(), fragment.getMissing()));
+            }
+            return;
+        }
+
+        ReplyCache.Key id = new ReplyCache.Key(client, fragment.getMessageId());
+        Partial p = partial.get(id);
+        if (p == null) {
+            // no client sends more than this, and the buffer for it is allocated up front
+            if (fragment.getCount() > MAX_REQUEST_FRAGMENTS) return;
+            // too many unfinished requests: drop the fragment, the client retransmits once some finish or expire
+            if (partial.size() >= MAX_PARTIAL
+                    || partialPerClient.getOrDefault(client, 0) >= MAX_PARTIAL_PER_CLIENT) return;
+            p = new Partial(new Reassembler(fragment));
+            partial.put(id, p);
+            partialPerClient.merge(client, 1, Integer::sum);
+        }
+        if (p.reassembler.accept(fragment)) {
+            p.lastProgress = System.nanoTime();
+            p.nackAt = p.lastProgress + NACK_DELAY_NANOS;
+        }
+        if (p.reassembler.isComplete()) {
+            partial.remove(id);
+            forgetPartial(client);
+            onRequest(client, p.reassembler);
+        }
+    }
+
+    private void forgetPartial(SocketAddress client) {
+        partialPerClient.computeIfPresent(client, (c, n) -> n == 1 ? null : n - 1);
+    }
+
+    private void onRequest(SocketAddress client, Reassembler request) {
+        int messageId = request.getMessageId();
+        long receivedAt = System.nanoTime();
+        switch (replies.begin(client, messageId)) {
+            case DONE: {
+                // a retransmission whose reply got lost: send the same reply again
+                ReplyCache.Entry reply = replies.get(client, messageId);
+                if (reply != null) enqueue(new Outgoing(client, messageId, reply.getFlags(), reply.getMessage(), null));
+                return;
+            }
+            case IN_PROGRESS:
+                return; // the first copy is still being executed
+            default:
+                try {
+                    workers.execute(() -> execute(client, messageId, request.getFlags(), request.message(), receivedAt));
+                } catch (RejectedExecutionException e) {
+                    replies.abort(client, messageId); // overloaded or shutting down: the client will retry
+                }
+        }
+    }
+
+    // Runs on a worker thread.
+    private void execute(SocketAddress client, int messageId, int flags, ByteBuffer body, long receivedAt) {
+        MessageCodec codec = null;
+        boolean answered = false;
+        try {
+            if ((flags & Fragment.COMPRESSED) != 0) body = Compression.decompress(body);
+            codec = MessageCodec.detect(body); // answer in the format the client used
+            Request request = (Request) codec.decode(body);
+
+            ResultCache.Key cacheKey = ResultCache.keyFor(codec, request);
+            long generation = manager.getVersion(); // read first: the reply is never older than this
+            ResultCache.Entry cached = cacheKey == null ? null : results.get(cacheKey, generation);
+
+            ByteBuffer message;
+            int replyFlags = 0;
+            if (cached != null) {
+                message = cached.getMessage();
+                replyFlags = cached.getFlags();
+            } else {
+                Deadline deadline = new Deadline(receivedAt + requestTimeoutNanos);
+                Response response = handler.handle(request, deadline);
+                // some commands may have been refused: such a reply is not worth caching
+                boolean expired = deadline.passed();
+                if (cacheKey != null) response.setCorrelationId(0); // the same bytes go to every client
+
+                message = encode(codec, response);
+                ByteBuffer compressed = compression.compress(message);
+                if (compressed != null) {
+                    message = compressed;
+                    replyFlags = Fragment.COMPRESSED;
+                }
+                if (cacheKey != null && !expired) results.put(cacheKey, generation, message, replyFlags);
+            }
+
+            replies.put(client, messageId, message, replyFlags);
+            answered = true;
+            outgoing.put(new Outgoing(client, messageId, replyFlags, message, null));
+            selector.wakeup();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // Errors too (a StackOverflowError, an OutOfMemoryError for a huge reply): the client gets told
+            System.out.println("Error while handling a request from " + client + ": " + e);
+            if (codec != null) sendError(client, messageId, codec, e);
+        } finally {
+            // an entry left IN_PROGRESS would never be evicted, and every retry would be dropped
+            if (!answered) replies.abort(client, messageId);
+        }
+    }
+
+    // Best effort, not cached: a retry runs the request again.
+    private void sendError(SocketAddress client, int messageId, MessageCodec codec, Throwable error) {
+        try {
+            ByteBuffer message = encode(codec, new Response("Server error: " + error, null));
+            if (outgoing.offer(new Outgoing(client, messageId, 0, message, null))) selector.wakeup();
+        } catch (Throwable e) {
+            System.out.println("Could not send the error to " + client + ": " + e);
+        }
+    }
+
+    // Encodes into a pooled buffer, or a larger one-off buffer if it does not fit, and returns an exact-size copy.
+    private ByteBuffer encode(MessageCodec codec, Object message) throws IOException {
+        ByteBuffer pooled = encodeBuffers.acquire();
+        try {
+            ByteBuffer buffer = pooled;
+            while (true) {
+                buffer.clear();
+                try {
+                    codec.encode(message, buffer);
+                    break;
+                } catch (BufferOverflowException e) {
+                    if (buffer.capacity() >= Fragment.MAX_FRAGMENTS * Fragment.PAYLOAD_SIZE) {
+                        throw new IOException("Reply is too large to send");
+                    }
+                    // start from the size the last large reply needed instead of doubling up to it every time
+                    buffer = ByteBuffer.allocate(buffer == pooled ? largeReplySize : buffer.capacity() * 2);
+                }
+            }
+            if (buffer != pooled && buffer.capacity() > largeReplySize) largeReplySize = buffer.capacity();
+            buffer.flip();
+            ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+            copy.put(buffer).flip();
+            return copy;
+        } finally {
+            encodeBuffers.release(pooled);
+        }
+    }
+
+    // From the I/O thread: never block, drop if the queue is full (the client will ask again).
+    private void enqueue(Outgoing reply) {
+        outgoing.offer(reply);
+    }
+
+    // Sends queued fragments until the queue is empty or the socket buffer is full.
+    private void flushOutgoing(ByteBuffer datagram) throws IOException {
+        Outgoing head;
+        while ((head = outgoing.peek()) != null) {
+            while (head.next < head.total()) {
+                int index = head.index(head.next);
+                if (index < 0 || index >= Fragment.count(head.message.remaining())) {
+                    head.next++; // bogus index in a NACK
+                    continue;
+                }
+
+                datagram.clear();
+                Fragment.write(datagram, head.flags, head.messageId, head.message, index);
+                datagram.flip();
+                if (channel.send(datagram, head.client) == 0) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE); // resume when writable
+                    return;
+                }
+                head.next++;
+            }
+            outgoing.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    // NACKs stalled multi-fragment requests and forgets abandoned ones.
+    private void sweep(ByteBuffer datagram, long now) throws IOException {
+        Iterator<Map.Entry<ReplyCache.Key, Partial>> it = partial.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<ReplyCache.Key, Partial> entry = it.next();
+            Partial p = entry.getValue();
+            if (now - p.lastProgress >= REASSEMBLY_TIMEOUT_NANOS) {
+                it.remove();
+                forgetPartial(entry.getKey().getClient());
+            } else if (now - p.nackAt >= 0) {
+                datagram.clear();
+                Fragment.writeNack(datagram, p.reassembler.getMessageId(), p.reassembler.missing());
+                datagram.flip();
+                channel.send(datagram, entry.getKey().getClient());
+                p.nackAt = now + NACK_DELAY_NANOS;
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts a new virtual thread for every request, so a request that blocks (on disk, on the collection lock)
+ * parks only itself and never holds up requests queued behind it.
+ * Virtual threads are cheap but not free, so at most maxInFlight requests run at once; more are rejected
+ * and the client retransmits.
+ */
+public class VirtualThreadExecutor implements RequestExecutor {
+
+    private final ExecutorService threads =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("udp-server-request-", 1).factory());
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    public VirtualThreadExecutor(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!permits.tryAcquire()) throw new RejectedExecutionException("Too many requests in flight");
+        try {
+            threads.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        threads.shutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return threads.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public void shutdownNow() {
+        threads.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return "virtual threads (up to " + maxInFlight + " in flight)";
+    }
+}